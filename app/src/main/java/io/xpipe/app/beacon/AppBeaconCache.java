@@ -4,23 +4,38 @@ import io.xpipe.beacon.BeaconClientException;
 
 import lombok.Value;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Value
 public class AppBeaconCache {
 
-    Set<BeaconShellSession> shellSessions = new HashSet<>();
+    // Sessions might be accessed concurrently by batch requests, keyed by the uuid of their entry
+    Map<UUID, BeaconShellSession> shellSessions = new ConcurrentHashMap<>();
+
+    public Optional<BeaconShellSession> getShellSessionIfPresent(UUID uuid) {
+        return Optional.ofNullable(shellSessions.get(uuid));
+    }
 
     public BeaconShellSession getShellSession(UUID uuid) throws BeaconClientException {
-        var found = shellSessions.stream()
-                .filter(beaconShellSession ->
-                        beaconShellSession.getEntry().getUuid().equals(uuid))
-                .findFirst();
-        if (found.isEmpty()) {
+        var found = shellSessions.get(uuid);
+        if (found == null) {
             throw new BeaconClientException("No active shell session known for id " + uuid);
         }
-        return found.get();
+        return found;
+    }
+
+    /**
+     * Adds the session unless there already is one for the same entry, in which case the existing one is returned.
+     */
+    public BeaconShellSession addShellSession(BeaconShellSession session) {
+        var existing = shellSessions.putIfAbsent(session.getEntry().getUuid(), session);
+        return existing != null ? existing : session;
+    }
+
+    public void removeShellSession(BeaconShellSession session) {
+        shellSessions.remove(session.getEntry().getUuid(), session);
     }
 }
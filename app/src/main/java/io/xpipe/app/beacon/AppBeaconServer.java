@@ -1,5 +1,6 @@
 package io.xpipe.app.beacon;
 
+import io.xpipe.app.core.AppProperties;
 import io.xpipe.app.issue.ErrorEvent;
 import io.xpipe.app.issue.TrackEvent;
 import io.xpipe.app.resources.AppResources;
@@ -20,13 +21,16 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 public class AppBeaconServer {
 
+    private static final int BACKLOG = 256;
     private static AppBeaconServer INSTANCE;
 
     @Getter
@@ -39,8 +43,8 @@ public class AppBeaconServer {
     private ExecutorService executor;
     private HttpServer server;
 
-    @Getter
-    private final Set<BeaconSession> sessions = new HashSet<>();
+    // Sessions are looked up by their token for every request
+    private final Map<String, BeaconSession> sessions = new ConcurrentHashMap<>();
 
     @Getter
     private final AppBeaconCache cache = new AppBeaconCache();
@@ -48,8 +52,9 @@ public class AppBeaconServer {
     @Getter
     private String localAuthSecret;
 
-    private String notFoundHtml;
-    private final Map<String, String> resources = new HashMap<>();
+    private final Map<String, BeaconRequestHandler<?>> handlers = new ConcurrentHashMap<>();
+    private volatile String notFoundHtml;
+    private final Map<String, String> resources = new ConcurrentHashMap<>();
 
     public static void setupPort() {
         int port;
@@ -95,7 +100,19 @@ public class AppBeaconServer {
     }
 
     public void addSession(BeaconSession session) {
-        this.sessions.add(session);
+        this.sessions.put(session.getToken(), session);
+    }
+
+    public Optional<BeaconSession> getSession(String token) {
+        return Optional.ofNullable(sessions.get(token));
+    }
+
+    public Collection<BeaconSession> getSessions() {
+        return sessions.values();
+    }
+
+    public Optional<BeaconRequestHandler<?>> getHandler(String path) {
+        return Optional.ofNullable(handlers.get(path));
     }
 
     public static AppBeaconServer get() {
@@ -134,19 +151,13 @@ public class AppBeaconServer {
     }
 
     private void start() throws IOException {
-        executor = Executors.newFixedThreadPool(5, r -> {
-            Thread t = Executors.defaultThreadFactory().newThread(r);
-            t.setDaemon(true);
-            t.setName("http handler");
-            t.setUncaughtExceptionHandler((t1, e) -> {
-                ErrorEvent.fromThrowable(e).handle();
-            });
-            return t;
-        });
+        executor = createExecutor();
         server = HttpServer.create(
-                new InetSocketAddress(Inet4Address.getByAddress(new byte[] {0x7f, 0x00, 0x00, 0x01}), port), 10);
+                new InetSocketAddress(Inet4Address.getByAddress(new byte[] {0x7f, 0x00, 0x00, 0x01}), port), BACKLOG);
         BeaconInterface.getAll().forEach(beaconInterface -> {
-            server.createContext(beaconInterface.getPath(), new BeaconRequestHandler<>(beaconInterface));
+            var handler = new BeaconRequestHandler<>(beaconInterface);
+            handlers.put(beaconInterface.getPath(), handler);
+            server.createContext(beaconInterface.getPath(), handler);
         });
         server.setExecutor(executor);
 
@@ -169,6 +180,25 @@ public class AppBeaconServer {
         running = true;
     }
 
+    private ExecutorService createExecutor() {
+        // Some requests wait for a long time, e.g. until a terminal session is closed or a command has finished
+        // With a thread per request, these can't block other clients
+        var threads = AppProperties.get().getBeaconHandlerThreads();
+        var factory = threads > 0
+                ? Thread.ofPlatform().daemon(true).name("http handler").factory()
+                : Thread.ofVirtual().name("http handler").factory();
+        ThreadFactory handlerFactory = r -> {
+            var t = factory.newThread(r);
+            t.setUncaughtExceptionHandler((t1, e) -> {
+                ErrorEvent.fromThrowable(e).handle();
+            });
+            return t;
+        };
+        return threads > 0
+                ? Executors.newFixedThreadPool(threads, handlerFactory)
+                : Executors.newThreadPerTaskExecutor(handlerFactory);
+    }
+
     private void handleResource(HttpExchange exchange, String resource) throws IOException {
         if (!resources.containsKey(resource)) {
             AppResources.with(AppResources.XPIPE_MODULE, resource, file -> {
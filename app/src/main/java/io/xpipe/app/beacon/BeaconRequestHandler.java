@@ -1,15 +1,21 @@
 package io.xpipe.app.beacon;
 
+import io.xpipe.app.core.AppLogs;
 import io.xpipe.app.core.mode.OperationMode;
 import io.xpipe.app.issue.ErrorEvent;
 import io.xpipe.app.issue.TrackEvent;
 import io.xpipe.app.prefs.AppPrefs;
-import io.xpipe.app.util.ThreadHelper;
 import io.xpipe.beacon.*;
+import io.xpipe.beacon.api.BatchExchange;
 import io.xpipe.core.util.JacksonMapper;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import lombok.Getter;
 import lombok.SneakyThrows;
 
 import java.io.IOException;
@@ -17,11 +23,20 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class BeaconRequestHandler<T> implements HttpHandler {
 
+    private static final Map<Object, ReentrantLock> LOCKS = new WeakHashMap<>();
+
+    @Getter
     private final BeaconInterface<T> beaconInterface;
 
+    // Computed on first use as the mapper is not fully initialized when the handlers are created
+    private volatile InterfaceInfo info;
+
     public BeaconRequestHandler(BeaconInterface<T> beaconInterface) {
         this.beaconInterface = beaconInterface;
     }
@@ -34,8 +49,11 @@ public class BeaconRequestHandler<T> implements HttpHandler {
         }
 
         if (beaconInterface.requiresCompletedStartup()) {
-            while (OperationMode.isInStartup()) {
-                ThreadHelper.sleep(100);
+            try {
+                OperationMode.waitForStartupCompletion();
+            } catch (InterruptedException e) {
+                writeError(exchange, new BeaconServerErrorResponse(e), 500);
+                return;
             }
         }
 
@@ -54,11 +72,8 @@ public class BeaconRequestHandler<T> implements HttpHandler {
             }
 
             var token = auth.replace("Bearer ", "");
-            var session = AppBeaconServer.get().getSessions().stream()
-                    .filter(s -> s.getToken().equals(token))
-                    .findFirst()
-                    .orElse(null);
-            if (session == null) {
+            var session = AppBeaconServer.get().getSession(token);
+            if (session.isEmpty()) {
                 writeError(exchange, new BeaconClientErrorResponse("Unknown token"), 403);
                 return;
             }
@@ -67,86 +82,34 @@ public class BeaconRequestHandler<T> implements HttpHandler {
         handleAuthenticatedRequest(exchange);
     }
 
+    private static ReentrantLock getLock(Object sync) {
+        synchronized (LOCKS) {
+            return LOCKS.computeIfAbsent(sync, o -> new ReentrantLock());
+        }
+    }
+
     private void handleAuthenticatedRequest(HttpExchange exchange) {
-        T object;
         Object response;
         try {
-            if (beaconInterface.readRawRequestBody()) {
-                object = createDefaultRequest(beaconInterface);
-            } else {
-                try (InputStream is = exchange.getRequestBody()) {
-                    var read = is.readAllBytes();
-                    var rawDataRequestClass = beaconInterface.getRequestClass().getDeclaredFields().length == 1
-                            && beaconInterface
-                                    .getRequestClass()
-                                    .getDeclaredFields()[0]
-                                    .getType()
-                                    .equals(byte[].class);
-                    if (!new String(read, StandardCharsets.US_ASCII).trim().startsWith("{") && rawDataRequestClass) {
-                        object = createRawDataRequest(beaconInterface, read);
-                    } else {
-                        var tree = JacksonMapper.getDefault().readTree(read);
-                        TrackEvent.trace("Parsed raw request:\n" + tree.toPrettyString());
-                        var emptyRequestClass = tree.isEmpty()
-                                && beaconInterface.getRequestClass().getDeclaredFields().length == 0;
-                        object = emptyRequestClass
-                                ? createDefaultRequest(beaconInterface)
-                                : JacksonMapper.getDefault().treeToValue(tree, beaconInterface.getRequestClass());
-                        TrackEvent.trace("Parsed request object:\n" + object);
-                    }
-                }
-            }
-
-            var sync = beaconInterface.getSynchronizationObject();
-            if (sync != null) {
-                synchronized (sync) {
-                    response = beaconInterface.handle(exchange, object);
-                }
-            } else {
-                response = beaconInterface.handle(exchange, object);
-            }
-        } catch (BeaconClientException clientException) {
-            ErrorEvent.fromThrowable(clientException).omit().expected().handle();
-            writeError(exchange, new BeaconClientErrorResponse(clientException.getMessage()), 400);
-            return;
-        } catch (BeaconServerException serverException) {
-            var cause = serverException.getCause() != null ? serverException.getCause() : serverException;
-            ErrorEvent.fromThrowable(cause).omit().handle();
-            writeError(exchange, new BeaconServerErrorResponse(cause), 500);
-            return;
-        } catch (IOException ex) {
-            // Handle serialization errors as normal exceptions and other IO exceptions as assuming that the connection
-            // is broken
-            if (!ex.getClass().getName().contains("jackson")) {
-                ErrorEvent.fromThrowable(ex).omit().expected().handle();
-            } else {
-                ErrorEvent.fromThrowable(ex).omit().expected().handle();
-                // Make deserialization error message more readable
-                var message = ex.getMessage()
-                        .replace("$RequestBuilder", "")
-                        .replace("Exchange$Request", "Request")
-                        .replace("at [Source: UNKNOWN; byte offset: #UNKNOWN]", "")
-                        .replaceAll("(\\w+) is marked non-null but is null", "field $1 is missing from object")
-                        .trim();
-                writeError(exchange, new BeaconClientErrorResponse(message), 400);
+            var object = readRequest(exchange);
+            response = execute(exchange, object);
+        } catch (Throwable t) {
+            var error = toError(t);
+            if (error.write()) {
+                writeError(exchange, error.body(), error.code());
             }
             return;
-        } catch (Throwable other) {
-            ErrorEvent.fromThrowable(other).omit().expected().handle();
-            writeError(exchange, new BeaconServerErrorResponse(other), 500);
-            return;
         }
 
         try {
-            var emptyResponseClass = beaconInterface.getResponseClass().getDeclaredFields().length == 0;
+            var emptyResponseClass = getInfo().emptyResponseClass();
             if (!emptyResponseClass && response != null) {
-                TrackEvent.trace("Sending response:\n" + response);
-                TrackEvent.trace("Sending raw response:\n"
-                        + JacksonMapper.getCensored().valueToTree(response).toPrettyString());
-                var bytes = JacksonMapper.getDefault()
-                        .valueToTree(response)
-                        .toPrettyString()
-                        .getBytes(StandardCharsets.UTF_8);
+                if (isTraceEnabled()) {
+                    TrackEvent.trace("Sending response:\n" + response);
+                    TrackEvent.trace("Sending raw response:\n"
+                            + JacksonMapper.getCensored().valueToTree(response).toPrettyString());
+                }
+                var bytes = getInfo().responseWriter().writeValueAsBytes(response);
                 exchange.sendResponseHeaders(200, bytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
                     os.write(bytes);
@@ -165,6 +128,148 @@ public class BeaconRequestHandler<T> implements HttpHandler {
         }
     }
 
+    /**
+     * Handles a single operation of a batch request. Any error is returned as the result instead of being thrown.
+     */
+    public BatchExchange.Result handleBatchOperation(HttpExchange exchange, JsonNode request) {
+        try {
+            var info = getInfo();
+            T object = info.emptyRequestClass() || request == null || request.isNull()
+                    ? createDefaultRequest(beaconInterface)
+                    : info.requestReader().readValue(request);
+            var response = execute(exchange, object);
+            var node = !info.emptyResponseClass() && response != null
+                    ? JacksonMapper.getDefault().<JsonNode>valueToTree(response)
+                    : null;
+            return BatchExchange.Result.builder().status(200).response(node).build();
+        } catch (Throwable t) {
+            var error = toError(t);
+            return BatchExchange.Result.builder()
+                    .status(error.code())
+                    .response(JacksonMapper.getDefault().valueToTree(error.body()))
+                    .build();
+        }
+    }
+
+    private Object execute(HttpExchange exchange, T object) throws Throwable {
+        var sync = beaconInterface.getSynchronizationObject();
+        if (sync == null) {
+            return beaconInterface.handle(exchange, object);
+        }
+
+        // Waiting for a monitor pins virtual threads to their carrier, so let them queue on a lock first
+        var lock = getLock(sync);
+        lock.lock();
+        try {
+            synchronized (sync) {
+                return beaconInterface.handle(exchange, object);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ErrorResult toError(Throwable t) {
+        if (t instanceof BeaconClientException clientException) {
+            ErrorEvent.fromThrowable(clientException).omit().expected().handle();
+            return new ErrorResult(new BeaconClientErrorResponse(clientException.getMessage()), 400, true);
+        }
+
+        if (t instanceof BeaconServerException serverException) {
+            var cause = serverException.getCause() != null ? serverException.getCause() : serverException;
+            ErrorEvent.fromThrowable(cause).omit().handle();
+            return new ErrorResult(new BeaconServerErrorResponse(cause), 500, true);
+        }
+
+        if (t instanceof IOException ex) {
+            ErrorEvent.fromThrowable(ex).omit().expected().handle();
+            // Handle serialization errors as normal exceptions and other IO exceptions as assuming that the connection
+            // is broken
+            if (!ex.getClass().getName().contains("jackson")) {
+                return new ErrorResult(new BeaconServerErrorResponse(ex), 500, false);
+            }
+
+            // Make deserialization error message more readable
+            var message = ex.getMessage()
+                    .replace("$RequestBuilder", "")
+                    .replace("Exchange$Request", "Request")
+                    .replaceAll("at \\[Source: [^\\]]*\\]", "")
+                    .replaceAll("(\\w+) is marked non-null but is null", "field $1 is missing from object")
+                    .trim();
+            return new ErrorResult(new BeaconClientErrorResponse(message), 400, true);
+        }
+
+        ErrorEvent.fromThrowable(t).omit().expected().handle();
+        return new ErrorResult(new BeaconServerErrorResponse(t), 500, true);
+    }
+
+    private T readRequest(HttpExchange exchange) throws IOException {
+        var info = getInfo();
+        if (beaconInterface.readRawRequestBody()) {
+            return createDefaultRequest(beaconInterface);
+        }
+
+        try (InputStream is = exchange.getRequestBody()) {
+            if (info.emptyRequestClass()) {
+                // There is nothing to bind, so any content can be skipped
+                is.transferTo(OutputStream.nullOutputStream());
+                return createDefaultRequest(beaconInterface);
+            }
+
+            // Only raw data requests and trace logging need the complete body, everything else is bound directly
+            var trace = isTraceEnabled();
+            if (!info.rawDataRequestClass() && !trace) {
+                return info.requestReader().readValue(is);
+            }
+
+            var read = is.readAllBytes();
+            if (info.rawDataRequestClass() && !isJsonObject(read)) {
+                return createRawDataRequest(beaconInterface, read);
+            }
+
+            if (trace) {
+                TrackEvent.trace("Parsed raw request:\n"
+                        + JacksonMapper.getDefault().readTree(read).toPrettyString());
+            }
+            T object = info.requestReader().readValue(read);
+            if (trace) {
+                TrackEvent.trace("Parsed request object:\n" + object);
+            }
+            return object;
+        }
+    }
+
+    private static boolean isJsonObject(byte[] read) {
+        for (byte b : read) {
+            if (!Character.isWhitespace(b)) {
+                return b == '{';
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTraceEnabled() {
+        return AppLogs.get() == null || AppLogs.get().isLogged("trace");
+    }
+
+    private InterfaceInfo getInfo() {
+        var i = info;
+        if (i != null) {
+            return i;
+        }
+
+        var requestClass = beaconInterface.getRequestClass();
+        var requestFields = requestClass.getDeclaredFields();
+        i = new InterfaceInfo(
+                JacksonMapper.getDefault().readerFor(requestClass),
+                JacksonMapper.getDefault().writer().without(SerializationFeature.INDENT_OUTPUT),
+                requestFields.length == 0,
+                requestFields.length == 1 && requestFields[0].getType().equals(byte[].class),
+                beaconInterface.getResponseClass().getDeclaredFields().length == 0);
+        info = i;
+        return i;
+    }
+
     private void writeError(HttpExchange exchange, Object errorMessage, int code) {
         try {
             var bytes =
@@ -207,4 +312,13 @@ public class BeaconRequestHandler<T> implements HttpHandler {
         m.setAccessible(true);
         return (REQ) beaconInterface.getRequestClass().cast(m.invoke(b));
     }
+
+    private record InterfaceInfo(
+            ObjectReader requestReader,
+            ObjectWriter responseWriter,
+            boolean emptyRequestClass,
+            boolean rawDataRequestClass,
+            boolean emptyResponseClass) {}
+
+    private record ErrorResult(Object body, int code, boolean write) {}
 }
@@ -1,6 +1,7 @@
 package io.xpipe.app.beacon;
 
 import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.issue.TrackEvent;
 import io.xpipe.app.util.ShellTemp;
 import io.xpipe.beacon.BeaconClientException;
 
@@ -11,16 +12,26 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Stores blobs uploaded through the API until they are used. Small blobs are kept in memory as long as the total
+ * size of all memory blobs stays below a limit, everything else is written to disk while it is received.
+ * Blobs that have not been accessed for some time are removed.
+ */
 public class BlobManager {
 
     private static final Path TEMP = ShellTemp.getLocalTempDataDirectory("blob");
+    private static final int MAX_MEMORY_BLOB_SIZE = 1024 * 1024;
+    private static final long MAX_MEMORY_SIZE = 64 * 1024 * 1024;
+    private static final Duration TTL = Duration.ofHours(1);
     private static BlobManager INSTANCE;
-    private final Map<UUID, byte[]> memoryBlobs = new ConcurrentHashMap<>();
-    private final Map<UUID, Path> fileBlobs = new ConcurrentHashMap<>();
+    private final Map<UUID, Blob> blobs = new ConcurrentHashMap<>();
+    private final AtomicLong memorySize = new AtomicLong();
 
     public static BlobManager get() {
         return INSTANCE;
@@ -48,35 +59,89 @@ public class BlobManager {
         INSTANCE = null;
     }
 
-    public Path newBlobFile() throws IOException {
-        var file = TEMP.resolve(UUID.randomUUID().toString());
-        FileUtils.forceMkdir(file.getParent().toFile());
-        return file;
-    }
+    public void store(UUID uuid, InputStream blob) throws IOException {
+        evictExpired();
 
-    public void store(UUID uuid, byte[] blob) {
-        memoryBlobs.put(uuid, blob);
-    }
+        // Only read as much as is needed to decide whether the blob fits into memory
+        var head = blob.readNBytes(MAX_MEMORY_BLOB_SIZE + 1);
+        if (head.length <= MAX_MEMORY_BLOB_SIZE && memorySize.addAndGet(head.length) <= MAX_MEMORY_SIZE) {
+            blobs.put(uuid, new Blob(head, null, head.length));
+            return;
+        } else if (head.length <= MAX_MEMORY_BLOB_SIZE) {
+            memorySize.addAndGet(-head.length);
+        }
 
-    public void store(UUID uuid, InputStream blob) throws IOException {
         var file = TEMP.resolve(uuid.toString());
+        long size;
         try (var fileOut = Files.newOutputStream(file)) {
-            blob.transferTo(fileOut);
+            fileOut.write(head);
+            size = head.length + blob.transferTo(fileOut);
+        } catch (IOException ex) {
+            Files.deleteIfExists(file);
+            throw ex;
         }
-        fileBlobs.put(uuid, file);
+        blobs.put(uuid, new Blob(null, file, size));
+    }
+
+    public long getBlobSize(UUID uuid) throws BeaconClientException {
+        return getBlobEntry(uuid).size;
     }
 
     public InputStream getBlob(UUID uuid) throws Exception {
-        var memory = memoryBlobs.get(uuid);
-        if (memory != null) {
-            return new ByteArrayInputStream(memory);
+        var blob = getBlobEntry(uuid);
+        if (blob.memory != null) {
+            return new ByteArrayInputStream(blob.memory);
         }
 
-        var found = fileBlobs.get(uuid);
+        return Files.newInputStream(blob.file);
+    }
+
+    private Blob getBlobEntry(UUID uuid) throws BeaconClientException {
+        var found = blobs.get(uuid);
         if (found == null) {
             throw new BeaconClientException("No saved data known for id " + uuid);
         }
 
-        return Files.newInputStream(found);
+        found.lastAccess = System.nanoTime();
+        return found;
+    }
+
+    private void evictExpired() {
+        var now = System.nanoTime();
+        blobs.entrySet().removeIf(e -> {
+            if (now - e.getValue().lastAccess < TTL.toNanos()) {
+                return false;
+            }
+
+            TrackEvent.withTrace("Removing expired blob")
+                    .tag("id", e.getKey())
+                    .tag("size", e.getValue().size)
+                    .handle();
+            remove(e.getValue());
+            return true;
+        });
+    }
+
+    private void remove(Blob blob) {
+        if (blob.memory != null) {
+            memorySize.addAndGet(-blob.memory.length);
+        } else {
+            // Streams that are currently reading the file can still finish on most systems
+            FileUtils.deleteQuietly(blob.file.toFile());
+        }
+    }
+
+    private static class Blob {
+
+        private final byte[] memory;
+        private final Path file;
+        private final long size;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Blob(byte[] memory, Path file, long size) {
+            this.memory = memory;
+            this.file = file;
+            this.size = size;
+        }
     }
 }
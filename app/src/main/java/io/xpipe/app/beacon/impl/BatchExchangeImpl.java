@@ -0,0 +1,106 @@
+package io.xpipe.app.beacon.impl;
+
+import io.xpipe.app.beacon.AppBeaconServer;
+import io.xpipe.beacon.BeaconClientErrorResponse;
+import io.xpipe.beacon.api.BatchExchange;
+import io.xpipe.core.util.JacksonMapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+public class BatchExchangeImpl extends BatchExchange {
+
+    @Override
+    public Object handle(HttpExchange exchange, Request msg) {
+        var operations = msg.getOperations();
+        var results = new Result[operations.size()];
+
+        // Operations for the same connection might use the same shell session, so they have to run one after another
+        // Operations that don't refer to specific connections might affect any connection, so they run on their own
+        // after all previous operations and before all following ones
+        try (var executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("batch operation").factory())) {
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            var lastForConnection = new HashMap<UUID, CompletableFuture<Void>>();
+            CompletableFuture<Void> barrier = CompletableFuture.completedFuture(null);
+            for (int i = 0; i < operations.size(); i++) {
+                var index = i;
+                var connections = getConnections(operations.get(i));
+                var dependencies = new ArrayList<CompletableFuture<Void>>();
+                dependencies.add(barrier);
+                if (connections.isEmpty()) {
+                    dependencies.addAll(lastForConnection.values());
+                } else {
+                    connections.stream()
+                            .map(lastForConnection::get)
+                            .filter(Objects::nonNull)
+                            .forEach(dependencies::add);
+                }
+
+                var future = CompletableFuture.allOf(dependencies.toArray(CompletableFuture[]::new))
+                        .thenRunAsync(() -> results[index] = handle(exchange, operations.get(index)), executor);
+                futures.add(future);
+                if (connections.isEmpty()) {
+                    barrier = future;
+                    lastForConnection.clear();
+                } else {
+                    connections.forEach(uuid -> lastForConnection.put(uuid, future));
+                }
+            }
+
+            // Later operations are only submitted once their dependencies are done, so wait before closing the executor
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+
+        return Response.builder().results(Arrays.asList(results)).build();
+    }
+
+    private Result handle(HttpExchange exchange, Operation operation) {
+        var handler = AppBeaconServer.get().getHandler(operation.getPath());
+        if (handler.isEmpty()) {
+            return error("Unknown path " + operation.getPath());
+        }
+
+        if (!handler.get().getBeaconInterface().isBatchable()) {
+            return error("Path " + operation.getPath() + " can't be used in a batch");
+        }
+
+        return handler.get().handleBatchOperation(exchange, operation.getRequest());
+    }
+
+    private Result error(String message) {
+        return Result.builder()
+                .status(400)
+                .response(JacksonMapper.getDefault().valueToTree(new BeaconClientErrorResponse(message)))
+                .build();
+    }
+
+    private Set<UUID> getConnections(Operation operation) {
+        var set = new LinkedHashSet<UUID>();
+        if (operation.getRequest() == null) {
+            return set;
+        }
+
+        addConnection(operation.getRequest().path("connection"), set);
+        var list = operation.getRequest().path("connections");
+        if (list.isArray()) {
+            list.forEach(node -> addConnection(node, set));
+        }
+        return set;
+    }
+
+    private void addConnection(JsonNode node, Set<UUID> set) {
+        if (!node.isTextual()) {
+            return;
+        }
+
+        try {
+            set.add(UUID.fromString(node.asText()));
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
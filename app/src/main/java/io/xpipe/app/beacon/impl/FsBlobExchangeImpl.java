@@ -14,12 +14,8 @@ public class FsBlobExchangeImpl extends FsBlobExchange {
     @SneakyThrows
     public Object handle(HttpExchange exchange, Request msg) {
         var id = UUID.randomUUID();
-
-        var size = exchange.getRequestBody().available();
-        if (size > 100_000_000) {
-            BlobManager.get().store(id, exchange.getRequestBody());
-        } else {
-            BlobManager.get().store(id, exchange.getRequestBody().readAllBytes());
+        try (var in = exchange.getRequestBody()) {
+            BlobManager.get().store(id, in);
         }
         return Response.builder().blob(id).build();
     }
@@ -1,7 +1,6 @@
 package io.xpipe.app.beacon.impl;
 
 import io.xpipe.app.beacon.AppBeaconServer;
-import io.xpipe.app.beacon.BlobManager;
 import io.xpipe.app.ext.ConnectionFileSystem;
 import io.xpipe.app.util.FixedSizeInputStream;
 import io.xpipe.beacon.BeaconClientException;
@@ -10,12 +9,13 @@ import io.xpipe.beacon.api.FsReadExchange;
 import com.sun.net.httpserver.HttpExchange;
 import lombok.SneakyThrows;
 
-import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.file.Files;
 
 public class FsReadExchangeImpl extends FsReadExchange {
 
+    private static final int BUFFER_SIZE = 65536;
+
     @Override
     @SneakyThrows
     public Object handle(HttpExchange exchange, Request msg) {
@@ -27,33 +27,39 @@ public class FsReadExchangeImpl extends FsReadExchange {
         }
 
         var size = fs.getFileSize(msg.getPath().toString());
-        if (size > 100_000_000) {
-            var file = BlobManager.get().newBlobFile();
-            try (var in = fs.openInput(msg.getPath().toString())) {
-                var fixedIn = new FixedSizeInputStream(new BufferedInputStream(in), size);
-                try (var fileOut =
-                        Files.newOutputStream(file.resolve(msg.getPath().getFileName()))) {
-                    fixedIn.transferTo(fileOut);
+        IOException writeException = null;
+        // Open the file before sending any headers so that failures can still be reported as an error response
+        try (var in = fs.openInput(msg.getPath().toString())) {
+            var fixedIn = new FixedSizeInputStream(in, size);
+            try {
+                // The size is known beforehand, so the file can be sent directly without buffering it
+                exchange.sendResponseHeaders(200, size > 0 ? size : -1);
+                try (var out = exchange.getResponseBody()) {
+                    var buffer = new byte[BUFFER_SIZE];
+                    int read;
+                    while ((read = fixedIn.read(buffer)) != -1) {
+                        if (writeException != null) {
+                            continue;
+                        }
+
+                        try {
+                            out.write(buffer, 0, read);
+                        } catch (IOException ex) {
+                            // The client went away. The file still has to be read completely to keep the shell usable
+                            writeException = ex;
+                        }
+                    }
+                }
+            } catch (IOException ex) {
+                if (writeException == null) {
+                    writeException = ex;
                 }
-                in.transferTo(OutputStream.nullOutputStream());
             }
+            in.transferTo(OutputStream.nullOutputStream());
+        }
 
-            exchange.sendResponseHeaders(200, size);
-            try (var fileIn = Files.newInputStream(file);
-                    var out = exchange.getResponseBody()) {
-                fileIn.transferTo(out);
-            }
-        } else {
-            byte[] bytes;
-            try (var in = fs.openInput(msg.getPath().toString())) {
-                var fixedIn = new FixedSizeInputStream(new BufferedInputStream(in), size);
-                bytes = fixedIn.readAllBytes();
-                in.transferTo(OutputStream.nullOutputStream());
-            }
-            exchange.sendResponseHeaders(200, bytes.length);
-            try (var out = exchange.getResponseBody()) {
-                out.write(bytes);
-            }
+        if (writeException != null) {
+            throw writeException;
         }
         return Response.builder().build();
     }
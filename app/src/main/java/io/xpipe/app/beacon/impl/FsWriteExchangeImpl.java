@@ -15,8 +15,9 @@ public class FsWriteExchangeImpl extends FsWriteExchange {
     public Object handle(HttpExchange exchange, Request msg) {
         var shell = AppBeaconServer.get().getCache().getShellSession(msg.getConnection());
         var fs = new ConnectionFileSystem(shell.getControl());
+        var size = BlobManager.get().getBlobSize(msg.getBlob());
         try (var in = BlobManager.get().getBlob(msg.getBlob());
-                var os = fs.openOutput(msg.getPath().toString(), in.available())) {
+                var os = fs.openOutput(msg.getPath().toString(), size)) {
             in.transferTo(os);
         }
         return Response.builder().build();
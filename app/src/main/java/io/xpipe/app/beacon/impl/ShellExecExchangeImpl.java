@@ -1,6 +1,7 @@
 package io.xpipe.app.beacon.impl;
 
 import io.xpipe.app.beacon.AppBeaconServer;
+import io.xpipe.app.ext.ShellSessionHealth;
 import io.xpipe.beacon.api.ShellExecExchange;
 
 import com.sun.net.httpserver.HttpExchange;
@@ -24,6 +25,7 @@ public class ShellExecExchangeImpl extends ShellExecExchange {
             command.close();
             exitCode = command.getExitCode();
         }
+        ShellSessionHealth.get().markAlive(existing.getControl());
         return Response.builder()
                 .stdout(out.get())
                 .stderr(err.get())
@@ -0,0 +1,121 @@
+package io.xpipe.app.beacon.impl;
+
+import io.xpipe.app.beacon.AppBeaconServer;
+import io.xpipe.app.ext.ShellSessionHealth;
+import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.util.ThreadHelper;
+import io.xpipe.beacon.api.ShellExecStreamExchange;
+import io.xpipe.core.process.CommandControl;
+import io.xpipe.core.util.JacksonMapper;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ShellExecStreamExchangeImpl extends ShellExecStreamExchange {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    @Override
+    @SneakyThrows
+    public Object handle(HttpExchange exchange, Request msg) {
+        var existing = AppBeaconServer.get().getCache().getShellSession(msg.getConnection());
+        try (var command = existing.getControl().command(msg.getCommand()).start()) {
+            exchange.getResponseHeaders().add("Content-Type", CONTENT_TYPE);
+            // A length of zero enables chunked transfer encoding
+            exchange.sendResponseHeaders(200, 0);
+            try (var out = new FrameWriter(exchange.getResponseBody())) {
+                try {
+                    stream(command, out);
+                } catch (Exception ex) {
+                    // The status code has already been sent, so the error can only be reported in a frame
+                    ErrorEvent.fromThrowable(ex).omit().expected().handle();
+                    out.write(Frame.builder()
+                            .type(FrameType.ERROR)
+                            .data(ex.getMessage() != null ? ex.getMessage() : ex.toString())
+                            .build());
+                }
+            }
+        }
+        return Response.builder().build();
+    }
+
+    private void stream(CommandControl command, FrameWriter out) throws Exception {
+        // Both streams have to be read at the same time, otherwise the command might block
+        AtomicReference<Exception> stderrException = new AtomicReference<>();
+        var stderrThread = ThreadHelper.runAsync(() -> {
+            try {
+                forward(command, command.getStderr(), FrameType.STDERR, out);
+            } catch (Exception ex) {
+                stderrException.set(ex);
+            }
+        });
+        forward(command, command.getStdout(), FrameType.STDOUT, out);
+        stderrThread.join();
+        if (stderrException.get() != null) {
+            throw stderrException.get();
+        }
+
+        command.close();
+        ShellSessionHealth.get().markAlive(command.getParent());
+        out.write(Frame.builder()
+                .type(FrameType.EXIT)
+                .exitCode(command.getExitCode())
+                .build());
+    }
+
+    private void forward(CommandControl command, InputStream in, FrameType type, FrameWriter out)
+            throws IOException {
+        // Decode with a reader so that multibyte characters are not split between frames
+        var reader = new InputStreamReader(in, command.getCharset());
+        var buffer = new char[CHUNK_SIZE];
+        int read;
+        // The next chunk is only read once the previous one has been written to the client
+        // A slow client therefore also slows down the remote command instead of filling up the memory
+        while ((read = reader.read(buffer)) != -1) {
+            out.write(Frame.builder()
+                    .type(type)
+                    .data(new String(buffer, 0, read))
+                    .build());
+        }
+    }
+
+    private static class FrameWriter implements AutoCloseable {
+
+        private final OutputStream out;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private FrameWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        private void write(Frame frame) throws IOException {
+            // Every frame has to be on a single line
+            var json = JacksonMapper.getDefault()
+                    .writer()
+                    .without(SerializationFeature.INDENT_OUTPUT)
+                    .writeValueAsString(frame);
+            var bytes = (json + "\n").getBytes(StandardCharsets.UTF_8);
+            lock.lock();
+            try {
+                out.write(bytes);
+                out.flush();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
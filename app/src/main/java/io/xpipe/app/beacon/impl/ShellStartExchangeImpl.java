@@ -2,6 +2,7 @@ package io.xpipe.app.beacon.impl;
 
 import io.xpipe.app.beacon.AppBeaconServer;
 import io.xpipe.app.beacon.BeaconShellSession;
+import io.xpipe.app.ext.ShellSessionHealth;
 import io.xpipe.app.ext.ShellStore;
 import io.xpipe.app.storage.DataStorage;
 import io.xpipe.beacon.BeaconClientException;
@@ -22,9 +23,7 @@ public class ShellStartExchangeImpl extends ShellStartExchange {
             throw new BeaconClientException("Not a shell connection");
         }
 
-        var existing = AppBeaconServer.get().getCache().getShellSessions().stream()
-                .filter(beaconShellSession -> beaconShellSession.getEntry().equals(e))
-                .findFirst();
+        var existing = AppBeaconServer.get().getCache().getShellSessionIfPresent(e.getUuid());
         var control = (existing.isPresent()
                 ? existing.get().getControl()
                 : s.standaloneControl().start());
@@ -38,8 +37,16 @@ public class ShellStartExchangeImpl extends ShellStartExchange {
         }
 
         if (existing.isEmpty()) {
-            AppBeaconServer.get().getCache().getShellSessions().add(new BeaconShellSession(e, control));
+            // Another request might have started a session for the same connection in the meantime
+            var added = AppBeaconServer.get().getCache().addShellSession(new BeaconShellSession(e, control));
+            if (added.getControl() != control) {
+                control.close();
+                control = added.getControl();
+            }
         }
+        // API sessions are kept open by clients for a long time, possibly with long pauses in between
+        ShellSessionHealth.get().markAlive(control);
+        ShellSessionHealth.get().pin(control);
         return Response.builder()
                 .shellDialect(control.getShellDialect())
                 .osType(control.getOsType())
@@ -1,6 +1,7 @@
 package io.xpipe.app.beacon.impl;
 
 import io.xpipe.app.beacon.AppBeaconServer;
+import io.xpipe.app.ext.ShellSessionHealth;
 import io.xpipe.beacon.api.ShellStopExchange;
 
 import com.sun.net.httpserver.HttpExchange;
@@ -12,8 +13,9 @@ public class ShellStopExchangeImpl extends ShellStopExchange {
     @SneakyThrows
     public Object handle(HttpExchange exchange, Request msg) {
         var e = AppBeaconServer.get().getCache().getShellSession(msg.getConnection());
+        ShellSessionHealth.get().unpin(e.getControl());
         e.getControl().close();
-        AppBeaconServer.get().getCache().getShellSessions().remove(e);
+        AppBeaconServer.get().getCache().removeShellSession(e);
         return Response.builder().build();
     }
 }
@@ -4,11 +4,13 @@ import io.xpipe.app.browser.file.BrowserFileSystemTabModel;
 import io.xpipe.app.browser.file.BrowserHistorySavedState;
 import io.xpipe.app.browser.file.BrowserHistoryTabModel;
 import io.xpipe.app.browser.file.BrowserTransferModel;
+import io.xpipe.app.ext.ShellSessionHealth;
 import io.xpipe.app.prefs.AppPrefs;
 import io.xpipe.app.storage.DataStorage;
 import io.xpipe.app.storage.DataStoreEntryRef;
 import io.xpipe.app.util.BooleanScope;
 import io.xpipe.app.util.ThreadHelper;
+import io.xpipe.core.process.ShellControl;
 import io.xpipe.core.store.FileNames;
 import io.xpipe.core.store.FileSystemStore;
 import io.xpipe.core.util.FailableFunction;
@@ -100,6 +102,20 @@ public class BrowserFullSessionModel extends BrowserAbstractSessionModel<Browser
                 previousTabs.add(newValue);
             }
         });
+
+        // A pinned tab stays open for a long time, so its connection is kept alive in the background
+        globalPinnedTab.addListener((observable, oldValue, newValue) -> {
+            getShell(oldValue).ifPresent(sc -> ShellSessionHealth.get().unpin(sc));
+            getShell(newValue).ifPresent(sc -> ShellSessionHealth.get().pin(sc));
+        });
+    }
+
+    private static Optional<ShellControl> getShell(BrowserSessionTab tab) {
+        if (!(tab instanceof BrowserFileSystemTabModel model) || model.getFileSystem() == null) {
+            return Optional.empty();
+        }
+
+        return model.getFileSystem().getShell();
     }
 
     public Set<BrowserSessionTab> getAllTabs() {
@@ -29,6 +29,9 @@ public class BrowserAlerts {
             map.put(
                     new ButtonType(AppI18n.get("replaceAll"), ButtonBar.ButtonData.OTHER),
                     FileConflictChoice.REPLACE_ALL);
+            map.put(
+                    new ButtonType(AppI18n.get("replaceChangedAll"), ButtonBar.ButtonData.OTHER),
+                    FileConflictChoice.REPLACE_CHANGED_ALL);
         }
         map.put(new ButtonType(AppI18n.get("rename"), ButtonBar.ButtonData.OTHER), FileConflictChoice.RENAME);
         if (multiple) {
@@ -110,6 +113,7 @@ public class BrowserAlerts {
         SKIP_ALL,
         REPLACE,
         REPLACE_ALL,
+        REPLACE_CHANGED_ALL,
         RENAME,
         RENAME_ALL
     }
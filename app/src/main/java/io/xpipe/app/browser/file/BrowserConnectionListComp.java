@@ -66,7 +66,7 @@ public final class BrowserConnectionListComp extends SimpleComp {
 
         var section = new StoreSectionMiniComp(
                 StoreSection.createTopLevel(
-                        StoreViewState.get().getAllEntries(),
+                        StoreViewState.get().getEntryTree(),
                         this::filter,
                         filter,
                         category,
@@ -2,6 +2,7 @@ package io.xpipe.app.browser.file;
 
 import io.xpipe.app.browser.icon.BrowserIconDirectoryType;
 import io.xpipe.app.browser.icon.BrowserIconFileType;
+import io.xpipe.app.browser.icon.BrowserIconManager;
 import io.xpipe.core.store.FileEntry;
 import io.xpipe.core.store.FileKind;
 import io.xpipe.core.store.FileNames;
@@ -24,41 +25,15 @@ public class BrowserEntry {
     }
 
     private static BrowserIconFileType fileType(FileEntry rawFileEntry) {
-        if (rawFileEntry == null) {
+        if (rawFileEntry == null || rawFileEntry.resolved().getKind() != FileKind.FILE) {
             return null;
         }
-        rawFileEntry = rawFileEntry.resolved();
 
-        if (rawFileEntry.getKind() != FileKind.FILE) {
-            return null;
-        }
-
-        for (var f : BrowserIconFileType.getAll()) {
-            if (f.matches(rawFileEntry)) {
-                return f;
-            }
-        }
-
-        return null;
+        return BrowserIconManager.getFileType(rawFileEntry);
     }
 
     private static BrowserIconDirectoryType directoryType(FileEntry rawFileEntry) {
-        if (rawFileEntry == null) {
-            return null;
-        }
-        rawFileEntry = rawFileEntry.resolved();
-
-        if (rawFileEntry.getKind() != FileKind.DIRECTORY) {
-            return null;
-        }
-
-        for (var f : BrowserIconDirectoryType.getAll()) {
-            if (f.matches(rawFileEntry)) {
-                return f;
-            }
-        }
-
-        return null;
+        return BrowserIconManager.getDirectoryType(rawFileEntry);
     }
 
     public String getIcon() {
@@ -1,20 +1,26 @@
 package io.xpipe.app.browser.file;
 
+import io.xpipe.app.util.HostCapabilityCache;
 import io.xpipe.app.util.PasswdFile;
 import io.xpipe.app.util.ShellControlCache;
 import io.xpipe.core.process.CommandBuilder;
 import io.xpipe.core.process.OsType;
+import io.xpipe.core.process.ProcessOutputException;
 import io.xpipe.core.process.ShellControl;
 import io.xpipe.core.process.ShellDialect;
 
 import lombok.Getter;
 
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Getter
 public class BrowserFileSystemCache extends ShellControlCache {
 
+    private static final Duration USERNAME_TTL = Duration.ofDays(7);
+    private static final Duration USERS_TTL = Duration.ofDays(1);
+
     private final BrowserFileSystemTabModel model;
     private final String username;
     private final PasswdFile passwdFile;
@@ -26,9 +32,8 @@ public class BrowserFileSystemCache extends ShellControlCache {
 
         ShellControl sc = model.getFileSystem().getShell().get();
         ShellDialect d = sc.getShellDialect();
-        // If there is no id command, we should still be fine with just assuming root
-        username = d.printUsernameCommand(sc).readStdoutIfPossible().orElse("root");
-        passwdFile = PasswdFile.parse(sc);
+        username = loadUsername(sc, d);
+        passwdFile = loadPasswdFile(sc);
         loadGroups();
     }
 
@@ -48,15 +53,39 @@ public class BrowserFileSystemCache extends ShellControlCache {
                 .orElse(0);
     }
 
+    private static String loadUsername(ShellControl sc, ShellDialect d) throws Exception {
+        try {
+            return HostCapabilityCache.get().getOrCompute(sc, "username", USERNAME_TTL, () -> d.printUsernameCommand(sc)
+                    .readStdoutOrThrow());
+        } catch (ProcessOutputException ex) {
+            // If there is no id command, we should still be fine with just assuming root
+            // This fallback is not cached as the username is also used for other purposes
+            return "root";
+        }
+    }
+
+    private PasswdFile loadPasswdFile(ShellControl sc) throws Exception {
+        if (sc.getOsType() == OsType.WINDOWS || sc.getOsType() == OsType.MACOS) {
+            return PasswdFile.parse(sc);
+        }
+
+        var content = HostCapabilityCache.get().getOrCompute(sc, "passwd", USERS_TTL, () -> sc.command(
+                        CommandBuilder.of().add("cat").addFile("/etc/passwd"))
+                .readStdoutIfPossible()
+                .orElse(""));
+        return PasswdFile.parse(content);
+    }
+
     private void loadGroups() throws Exception {
         var sc = model.getFileSystem().getShell().orElseThrow();
         if (sc.getOsType() == OsType.WINDOWS || sc.getOsType() == OsType.MACOS) {
             return;
         }
 
-        var lines = sc.command(CommandBuilder.of().add("cat").addFile("/etc/group"))
+        var lines = HostCapabilityCache.get().getOrCompute(sc, "groups", USERS_TTL, () -> sc.command(
+                        CommandBuilder.of().add("cat").addFile("/etc/group"))
                 .readStdoutIfPossible()
-                .orElse("");
+                .orElse(""));
         lines.lines().forEach(s -> {
             var split = s.split(":");
             try {
@@ -1,19 +1,29 @@
 package io.xpipe.app.browser.file;
 
+import io.xpipe.app.ext.ShellSessionPool;
 import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.prefs.AppPrefs;
+import io.xpipe.app.util.CommandSupport;
 import io.xpipe.app.util.ThreadHelper;
+import io.xpipe.core.process.CommandBuilder;
+import io.xpipe.core.process.CommandControl;
+import io.xpipe.core.process.OsType;
+import io.xpipe.core.process.ProcessOutputException;
+import io.xpipe.core.process.ShellControl;
 import io.xpipe.core.store.*;
+import io.xpipe.core.util.FailableSupplier;
 
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.value.ChangeListener;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Timer;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -21,6 +31,10 @@ import java.util.regex.Pattern;
 
 public class BrowserFileTransferOperation {
 
+    private static final int MAX_TRANSFER_SESSIONS = 16;
+    private static final int ARCHIVE_MIN_FILES = 16;
+    private static final long RESUME_MIN_SIZE = 16 * 1024 * 1024;
+
     private final FileEntry target;
     private final List<FileEntry> files;
     private final BrowserFileTransferMode transferMode;
@@ -28,6 +42,11 @@ public class BrowserFileTransferOperation {
     private final Consumer<BrowserTransferProgress> progress;
     private final BooleanProperty cancelled;
 
+    private final Map<String, Map<String, FileEntry>> targetListings = new HashMap<>();
+    private final Map<ShellControl, Optional<List<String>>> checksumPrograms = new IdentityHashMap<>();
+    // Pipes of all transfer sessions, so that one cancel listener can stop them
+    private final Set<BrowserFileTransferPipe> activePipes = ConcurrentHashMap.newKeySet();
+
     BrowserAlerts.FileConflictChoice lastConflictChoice;
 
     public BrowserFileTransferOperation(
@@ -69,7 +88,7 @@ public class BrowserFileTransferOperation {
         return new BrowserFileTransferOperation(target, entries, transferMode, checkConflicts, progress, cancelled);
     }
 
-    private void updateProgress(BrowserTransferProgress progress) {
+    private synchronized void updateProgress(BrowserTransferProgress progress) {
         this.progress.accept(progress);
     }
 
@@ -92,6 +111,11 @@ public class BrowserFileTransferOperation {
                 return BrowserAlerts.FileConflictChoice.SKIP;
             }
 
+            // Only existing files can be compared, new files are always transferred
+            if (lastConflictChoice == BrowserAlerts.FileConflictChoice.REPLACE_CHANGED_ALL) {
+                return BrowserAlerts.FileConflictChoice.REPLACE_CHANGED_ALL;
+            }
+
             var choice = BrowserAlerts.showFileConflictAlert(target, multiple);
             if (choice == BrowserAlerts.FileConflictChoice.CANCEL) {
                 lastConflictChoice = BrowserAlerts.FileConflictChoice.CANCEL;
@@ -117,6 +141,11 @@ public class BrowserFileTransferOperation {
                 return BrowserAlerts.FileConflictChoice.RENAME;
             }
 
+            if (choice == BrowserAlerts.FileConflictChoice.REPLACE_CHANGED_ALL) {
+                lastConflictChoice = BrowserAlerts.FileConflictChoice.REPLACE_CHANGED_ALL;
+                return BrowserAlerts.FileConflictChoice.REPLACE_CHANGED_ALL;
+            }
+
             return choice;
         }
         return BrowserAlerts.FileConflictChoice.REPLACE;
@@ -143,6 +172,13 @@ public class BrowserFileTransferOperation {
             }
         }
 
+        // Listeners can't be safely added and removed by multiple transfer threads at the same time
+        ChangeListener<Boolean> cancelListener = (observable, oldValue, newValue) -> {
+            if (newValue) {
+                activePipes.forEach(BrowserFileTransferPipe::stop);
+            }
+        };
+        cancelled.addListener(cancelListener);
         try {
             for (var file : files) {
                 if (cancelled()) {
@@ -166,6 +202,7 @@ public class BrowserFileTransferOperation {
                 }
             }
         } finally {
+            cancelled.removeListener(cancelListener);
             updateProgress(null);
         }
     }
@@ -289,8 +326,21 @@ public class BrowserFileTransferOperation {
             totalSize.addAndGet(source.getFileSystem().getFileSize(source.getPath()));
         }
 
-        var start = Instant.now();
-        AtomicLong transferred = new AtomicLong();
+        if (source.getKind() == FileKind.DIRECTORY
+                && flatFiles.size() >= ARCHIVE_MIN_FILES
+                && canTransferAsArchive(source)) {
+            var start = Instant.now();
+            var transferred = new AtomicLong();
+            transferArchive(source, transferred, totalSize, start);
+            if (cancelled()) {
+                return;
+            }
+
+            updateProgress(BrowserTransferProgress.finished(source.getName(), totalSize.get()));
+            return;
+        }
+
+        var jobs = new ArrayList<TransferJob>();
         for (var e : flatFiles.entrySet()) {
             if (cancelled()) {
                 return;
@@ -308,7 +358,16 @@ public class BrowserFileTransferOperation {
             if (sourceFile.getKind() == FileKind.DIRECTORY) {
                 target.getFileSystem().mkdirs(targetFile);
             } else if (sourceFile.getKind() == FileKind.FILE) {
-                if (checkConflicts) {
+                // Sizes of listed files are up-to-date, the size of a single file was just recalculated
+                var fileSize = source.getKind() == FileKind.DIRECTORY ? sourceFile.getSize() : totalSize.get();
+
+                // An incomplete target file of a previous transfer is not a conflict if it can be appended to
+                var resumable = canResume(
+                        sourceFile.getFileSystem(),
+                        target.getFileSystem(),
+                        new TransferJob(sourceFile, fileSize, targetFile),
+                        createJournalEntry(sourceFile, fileSize, targetFile));
+                if (checkConflicts && !resumable) {
                     var fileConflictChoice =
                             handleChoice(target.getFileSystem(), targetFile, files.size() > 1 || flatFiles.size() > 1);
                     if (fileConflictChoice == BrowserAlerts.FileConflictChoice.SKIP
@@ -316,32 +375,540 @@ public class BrowserFileTransferOperation {
                         continue;
                     }
 
+                    if (fileConflictChoice == BrowserAlerts.FileConflictChoice.REPLACE_CHANGED_ALL
+                            && isUnchanged(sourceFile, fileSize, targetFile)) {
+                        totalSize.addAndGet(-fileSize);
+                        continue;
+                    }
+
                     if (fileConflictChoice == BrowserAlerts.FileConflictChoice.RENAME) {
                         targetFile = renameFileLoop(target.getFileSystem(), targetFile, false);
                     }
                 }
 
-                transfer(sourceFile, targetFile, transferred, totalSize, start);
+                jobs.add(new TransferJob(sourceFile, fileSize, targetFile));
             }
         }
+
+        var start = Instant.now();
+        AtomicLong transferred = new AtomicLong();
+        transferAll(jobs, transferred, totalSize, start);
+        if (cancelled()) {
+            return;
+        }
+
         updateProgress(BrowserTransferProgress.finished(source.getName(), totalSize.get()));
     }
 
+    private int getTransferSessions() {
+        var prefs = AppPrefs.get();
+        var value = prefs != null ? prefs.fileTransferSessions().getValue() : null;
+        return value != null ? Math.max(1, Math.min(MAX_TRANSFER_SESSIONS, value)) : 1;
+    }
+
+    private void transferAll(List<TransferJob> jobs, AtomicLong transferred, AtomicLong totalSize, Instant start)
+            throws Exception {
+        if (jobs.isEmpty()) {
+            return;
+        }
+
+        var sourceFs = jobs.getFirst().source().getFileSystem();
+        var targetFs = target.getFileSystem();
+        var sessionCount = Math.min(getTransferSessions(), jobs.size());
+        if (sessionCount <= 1) {
+            for (TransferJob job : jobs) {
+                if (cancelled()) {
+                    return;
+                }
+
+                transfer(sourceFs, targetFs, job, transferred, totalSize, start);
+            }
+            return;
+        }
+
+        var sessions = openTransferSessions(sourceFs, targetFs, sessionCount);
+        var queue = new ConcurrentLinkedQueue<>(jobs);
+        var exception = new AtomicReference<Exception>();
+        var threads = new ArrayList<Thread>();
+        try {
+            for (TransferSession session : sessions) {
+                var thread = ThreadHelper.createPlatformThread("transfer session", true, () -> {
+                    TransferJob job;
+                    while (exception.get() == null && !cancelled() && (job = queue.poll()) != null) {
+                        try {
+                            transfer(session.source(), session.target(), job, transferred, totalSize, start);
+                        } catch (Exception ex) {
+                            exception.compareAndSet(null, ex);
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            // The first session uses the existing file systems
+            for (TransferSession session : sessions.subList(1, sessions.size())) {
+                session.close();
+            }
+        }
+
+        if (exception.get() != null) {
+            throw exception.get();
+        }
+    }
+
+    private List<TransferSession> openTransferSessions(FileSystem sourceFs, FileSystem targetFs, int count) {
+        var sessions = new ArrayList<TransferSession>();
+        sessions.add(new TransferSession(sourceFs, targetFs));
+        for (int i = 1; i < count; i++) {
+            FileSystem additionalSource = null;
+            try {
+                additionalSource = openAdditionalFileSystem(sourceFs);
+                var additionalTarget = openAdditionalFileSystem(targetFs);
+                if (additionalSource == null || additionalTarget == null) {
+                    if (additionalSource != null) {
+                        additionalSource.close();
+                    }
+                    break;
+                }
+
+                sessions.add(new TransferSession(additionalSource, additionalTarget));
+            } catch (Exception ex) {
+                // We can still transfer with the sessions we have
+                ErrorEvent.fromThrowable(ex).omit().expected().handle();
+                if (additionalSource != null) {
+                    try {
+                        additionalSource.close();
+                    } catch (Exception closeEx) {
+                        ErrorEvent.fromThrowable(closeEx).omit().expected().handle();
+                    }
+                }
+                break;
+            }
+        }
+        return sessions;
+    }
+
+    private static FileSystem openAdditionalFileSystem(FileSystem fileSystem) throws Exception {
+        // A new connection of the store would not run as the same user as an elevated or other derived shell
+        var shell = fileSystem.getShell().orElse(null);
+        if (shell == null || !ShellSessionPool.isStoreShell(shell)) {
+            return null;
+        }
+
+        var store = shell.getSourceStore().orElse(null);
+        if (!(store instanceof FileSystemStore fileSystemStore)) {
+            return null;
+        }
+
+        return fileSystemStore.createFileSystem().open();
+    }
+
+    private boolean canTransferAsArchive(FileEntry source) throws Exception {
+        var sourceSc = source.getFileSystem().getShell().orElse(null);
+        var targetSc = target.getFileSystem().getShell().orElse(null);
+        if (sourceSc == null || targetSc == null) {
+            return false;
+        }
+
+        // Tar on Windows does not reliably handle all paths
+        if (sourceSc.getOsType() == OsType.WINDOWS || targetSc.getOsType() == OsType.WINDOWS) {
+            return false;
+        }
+
+        // Unpacking overwrites existing files without asking
+        var targetDirectory = FileNames.join(target.getPath(), FileNames.getFileName(source.getPath()));
+        if (checkConflicts && target.getFileSystem().directoryExists(targetDirectory)) {
+            return false;
+        }
+
+        return CommandSupport.isInPathSilent(sourceSc, "tar") && CommandSupport.isInPathSilent(targetSc, "tar");
+    }
+
+    private void transferArchive(FileEntry source, AtomicLong transferred, AtomicLong totalSize, Instant start)
+            throws Exception {
+        if (cancelled()) {
+            return;
+        }
+
+        var sourceFs = source.getFileSystem();
+        var targetFs = target.getFileSystem();
+        var sourceSc = sourceFs.getShell().orElseThrow();
+        var targetSc = targetFs.getShell().orElseThrow();
+        // The error output can't be read from the streams, so it is written into files to report failures
+        var packErrors = getArchiveErrorFile(sourceSc);
+        var unpackErrors = getArchiveErrorFile(targetSc);
+        // Symbolic links are stored as links in the archive, unlike in the single file transfer which skips them
+        var pack = CommandBuilder.of()
+                .add("tar", "-c", "-f", "-", "-C")
+                .addFile(FileNames.getParent(source.getPath()))
+                .addFile(FileNames.getFileName(source.getPath()))
+                .add("2>")
+                .addFile(packErrors);
+        // The files should belong to the user who is transferring them, not to the owners on the source system
+        var unpack = CommandBuilder.of()
+                .add("tar", "-x", "--no-same-owner", "-f", "-", "-C")
+                .addFile(target.getPath())
+                .add("2>")
+                .addFile(unpackErrors);
+        var packCommand = new AtomicReference<CommandControl>();
+        var unpackCommand = new AtomicReference<CommandControl>();
+        Exception transferException = null;
+        try {
+            transferStream(
+                    sourceFs,
+                    targetFs,
+                    source,
+                    totalSize.get(),
+                    () -> {
+                        var cmd = sourceSc.command(pack);
+                        packCommand.set(cmd);
+                        return cmd.startExternalStdout();
+                    },
+                    () -> {
+                        var cmd = targetSc.command(unpack);
+                        cmd.setExitTimeout(Duration.ofMillis(Long.MAX_VALUE));
+                        unpackCommand.set(cmd);
+                        return cmd.startExternalStdin();
+                    },
+                    transferred,
+                    totalSize,
+                    start);
+        } catch (Exception ex) {
+            transferException = ex;
+        }
+
+        var packError = readArchiveErrors(sourceSc, packCommand.get(), packErrors);
+        var unpackError = readArchiveErrors(targetSc, unpackCommand.get(), unpackErrors);
+        if (transferException != null) {
+            packError.ifPresent(transferException::addSuppressed);
+            unpackError.ifPresent(transferException::addSuppressed);
+            throw transferException;
+        }
+
+        if (cancelled()) {
+            return;
+        }
+
+        if (packError.isPresent()) {
+            throw ErrorEvent.expected(packError.get());
+        }
+        if (unpackError.isPresent()) {
+            throw ErrorEvent.expected(unpackError.get());
+        }
+    }
+
+    private static String getArchiveErrorFile(ShellControl sc) {
+        return sc.getSystemTemporaryDirectory()
+                .join("xpipe-tar-" + UUID.randomUUID() + ".log")
+                .toString();
+    }
+
+    private static Optional<ProcessOutputException> readArchiveErrors(
+            ShellControl sc, CommandControl command, String file) {
+        if (command == null) {
+            return Optional.empty();
+        }
+
+        var errors = "";
+        try {
+            errors = sc.getShellDialect().getFileReadCommand(sc, file).readStdoutOrThrow();
+            sc.getShellDialect().getFileDeleteCommand(sc, file).execute();
+        } catch (Exception ex) {
+            ErrorEvent.fromThrowable(ex).omit().expected().handle();
+        }
+
+        // If the exit code is not known, any error output is treated as a failure
+        var exitCode = command.getExitCode();
+        var failed = exitCode == CommandControl.UNASSIGNED_EXIT_CODE ? !errors.isBlank() : exitCode != 0;
+        return failed ? Optional.of(ProcessOutputException.of(exitCode, errors)) : Optional.empty();
+    }
+
     private void transfer(
-            FileEntry sourceFile, String targetFile, AtomicLong transferred, AtomicLong totalSize, Instant start)
+            FileSystem sourceFs,
+            FileSystem targetFs,
+            TransferJob job,
+            AtomicLong transferred,
+            AtomicLong totalSize,
+            Instant start)
             throws Exception {
         if (cancelled()) {
             return;
         }
 
+        var journalEntry = createJournalEntry(job.source(), job.size(), job.targetFile());
+        var offset = 0L;
+        var resumable = getResumable(journalEntry);
+        if (resumable.isPresent() && supportsAppend(sourceFs, targetFs)) {
+            offset = getResumeOffset(targetFs, job, resumable.get());
+        }
+        if (journalEntry != null) {
+            BrowserTransferJournal.get().start(journalEntry);
+        }
+
+        try {
+            transfer(sourceFs, targetFs, job, offset, transferred, totalSize, start);
+        } catch (Exception ex) {
+            if (journalEntry != null) {
+                recordInterruption(targetFs, journalEntry, job.targetFile());
+            }
+            throw ex;
+        }
+
+        if (journalEntry != null) {
+            if (cancelled()) {
+                recordInterruption(targetFs, journalEntry, job.targetFile());
+            } else {
+                BrowserTransferJournal.get().finish(journalEntry.getTarget());
+            }
+        }
+    }
+
+    private void transfer(
+            FileSystem sourceFs,
+            FileSystem targetFs,
+            TransferJob job,
+            long offset,
+            AtomicLong transferred,
+            AtomicLong totalSize,
+            Instant start)
+            throws Exception {
+        if (offset > 0) {
+            transferred.addAndGet(offset);
+            var remaining = job.size() - offset;
+            if (remaining > 0) {
+                var sourceSc = sourceFs.getShell().orElseThrow();
+                var targetSc = targetFs.getShell().orElseThrow();
+                var read = CommandBuilder.of()
+                        .add("tail", "-c", "+" + (offset + 1))
+                        .addFile(job.source().getPath());
+                var append = CommandBuilder.of()
+                        .add("head", "-c", String.valueOf(remaining), ">>")
+                        .addFile(job.targetFile());
+                transferStream(
+                        sourceFs,
+                        targetFs,
+                        job.source(),
+                        remaining,
+                        () -> sourceSc.command(read).startExternalStdout(),
+                        () -> {
+                            var cmd = targetSc.command(append);
+                            cmd.setExitTimeout(Duration.ofMillis(Long.MAX_VALUE));
+                            return cmd.startExternalStdin();
+                        },
+                        transferred,
+                        totalSize,
+                        start);
+            }
+        } else {
+            transferStream(
+                    sourceFs,
+                    targetFs,
+                    job.source(),
+                    job.size(),
+                    () -> sourceFs.openInput(job.source().getPath()),
+                    () -> targetFs.openOutput(job.targetFile(), job.size()),
+                    transferred,
+                    totalSize,
+                    start);
+        }
+    }
+
+    private boolean canResume(
+            FileSystem sourceFs, FileSystem targetFs, TransferJob job, BrowserTransferJournal.Entry journalEntry)
+            throws Exception {
+        var resumable = getResumable(journalEntry);
+        return resumable.isPresent()
+                && supportsAppend(sourceFs, targetFs)
+                && getResumeOffset(targetFs, job, resumable.get()) > 0;
+    }
+
+    private long getResumeOffset(FileSystem targetFs, TransferJob job, BrowserTransferJournal.Entry recorded)
+            throws Exception {
+        if (recorded.getTargetSize() == null || recorded.getTargetSize() > job.size()) {
+            return 0;
+        }
+
+        // Only append if the target is still exactly as it was left when the transfer was interrupted
+        var current = queryFile(targetFs, job.targetFile());
+        if (current == null
+                || current.getKind() != FileKind.FILE
+                || current.getSize() != recorded.getTargetSize()
+                || !Objects.equals(getModified(current), recorded.getTargetModified())) {
+            return 0;
+        }
+
+        return recorded.getTargetSize();
+    }
+
+    private void recordInterruption(
+            FileSystem targetFs, BrowserTransferJournal.Entry journalEntry, String targetFile) {
+        try {
+            var current = queryFile(targetFs, targetFile);
+            if (current != null && current.getKind() == FileKind.FILE) {
+                BrowserTransferJournal.get()
+                        .interrupt(journalEntry.getTarget(), current.getSize(), getModified(current));
+            }
+        } catch (Exception ex) {
+            // Without a recorded target state, the transfer will just be restarted
+            ErrorEvent.fromThrowable(ex).omit().expected().handle();
+        }
+    }
+
+    private static FileEntry queryFile(FileSystem fileSystem, String file) throws Exception {
+        var parent = FileNames.getParent(file);
+        if (parent == null || !fileSystem.fileExists(file)) {
+            return null;
+        }
+
+        var name = FileNames.getFileName(file);
+        try (var stream = fileSystem.listFiles(parent)) {
+            return stream.filter(entry -> FileNames.getFileName(entry.getPath()).equals(name))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    private static Long getModified(FileEntry entry) {
+        return entry.getDate() != null ? entry.getDate().toEpochMilli() : null;
+    }
+
+    private BrowserTransferJournal.Entry createJournalEntry(FileEntry sourceFile, long size, String targetFile) {
+        // Restarting smaller files is cheap enough
+        if (size < RESUME_MIN_SIZE) {
+            return null;
+        }
+
+        var sourceLocation = getJournalLocation(sourceFile.getFileSystem(), sourceFile.getPath());
+        var targetLocation = getJournalLocation(target.getFileSystem(), targetFile);
+        if (sourceLocation == null || targetLocation == null) {
+            return null;
+        }
+
+        return BrowserTransferJournal.Entry.builder()
+                .target(targetLocation)
+                .source(sourceLocation)
+                .size(size)
+                .modified(sourceFile.getDate() != null ? sourceFile.getDate().toEpochMilli() : null)
+                .build();
+    }
+
+    private static String getJournalLocation(FileSystem fileSystem, String path) {
+        return fileSystem
+                .getShell()
+                .flatMap(ShellControl::getSourceStoreId)
+                .map(uuid -> uuid + ":" + path)
+                .orElse(null);
+    }
+
+    private static Optional<BrowserTransferJournal.Entry> getResumable(BrowserTransferJournal.Entry entry) {
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        return BrowserTransferJournal.get()
+                .get(entry.getTarget())
+                .filter(existing -> existing.isSameSource(entry));
+    }
+
+    private static boolean supportsAppend(FileSystem sourceFs, FileSystem targetFs) {
+        var sourceSc = sourceFs.getShell().orElse(null);
+        var targetSc = targetFs.getShell().orElse(null);
+        return sourceSc != null
+                && targetSc != null
+                && sourceSc.getOsType() != OsType.WINDOWS
+                && targetSc.getOsType() != OsType.WINDOWS;
+    }
+
+    private boolean isUnchanged(FileEntry sourceFile, long size, String targetFile) throws Exception {
+        var existing = getTargetEntry(targetFile);
+        if (existing == null || existing.getKind() != FileKind.FILE || existing.getSize() != size) {
+            return false;
+        }
+
+        // Transferred files are newer than their source
+        if (existing.getDate() != null
+                && sourceFile.getDate() != null
+                && !existing.getDate().isBefore(sourceFile.getDate())) {
+            return true;
+        }
+
+        // The timestamps are not conclusive, so compare the contents if possible
+        var sourceChecksum = computeChecksum(sourceFile.getFileSystem(), sourceFile.getPath());
+        if (sourceChecksum.isEmpty()) {
+            return false;
+        }
+
+        var targetChecksum = computeChecksum(target.getFileSystem(), targetFile);
+        return sourceChecksum.equals(targetChecksum);
+    }
+
+    private FileEntry getTargetEntry(String targetFile) throws Exception {
+        // List every target directory only once instead of querying every file
+        var parent = FileNames.getParent(targetFile);
+        var listing = targetListings.get(parent);
+        if (listing == null) {
+            listing = new HashMap<>();
+            if (target.getFileSystem().directoryExists(parent)) {
+                try (var stream = target.getFileSystem().listFiles(parent)) {
+                    for (FileEntry entry : stream.toList()) {
+                        listing.put(FileNames.getFileName(entry.getPath()), entry);
+                    }
+                }
+            }
+            targetListings.put(parent, listing);
+        }
+        return listing.get(FileNames.getFileName(targetFile));
+    }
+
+    private Optional<String> computeChecksum(FileSystem fileSystem, String file) throws Exception {
+        var sc = fileSystem.getShell().orElse(null);
+        if (sc == null || sc.getOsType() == OsType.WINDOWS) {
+            return Optional.empty();
+        }
+
+        var program = checksumPrograms.computeIfAbsent(sc, s -> {
+            if (CommandSupport.isInPathSilent(s, "sha256sum")) {
+                return Optional.of(List.of("sha256sum"));
+            }
+
+            if (CommandSupport.isInPathSilent(s, "shasum")) {
+                return Optional.of(List.of("shasum", "-a", "256"));
+            }
+
+            return Optional.empty();
+        });
+        if (program.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var command = CommandBuilder.of().addAll(program.get()).addFile(file);
+        var output = sc.command(command).readStdoutOrThrow().strip();
+        var split = output.split("\\s+");
+        return split.length > 0 && !split[0].isEmpty() ? Optional.of(split[0]) : Optional.empty();
+    }
+
+    private void transferStream(
+            FileSystem sourceFs,
+            FileSystem targetFs,
+            FileEntry sourceFile,
+            long size,
+            FailableSupplier<InputStream> input,
+            FailableSupplier<OutputStream> output,
+            AtomicLong transferred,
+            AtomicLong totalSize,
+            Instant start)
+            throws Exception {
         InputStream inputStream = null;
         OutputStream outputStream = null;
         try {
-            var fileSize = sourceFile.getFileSystem().getFileSize(sourceFile.getPath());
-
             // Read the first few bytes to figure out possible command failure early
             // before creating the output stream
-            inputStream = new BufferedInputStream(sourceFile.getFileSystem().openInput(sourceFile.getPath()), 1024);
+            inputStream = new BufferedInputStream(input.get(), 1024);
             inputStream.mark(1024);
             var streamStart = new byte[1024];
             var streamStartLength = inputStream.read(streamStart, 0, 1024);
@@ -352,8 +919,9 @@ public class BrowserFileTransferOperation {
                 inputStream.reset();
             }
 
-            outputStream = target.getFileSystem().openOutput(targetFile, fileSize);
-            transferFile(sourceFile, inputStream, outputStream, transferred, totalSize, start);
+            outputStream = output.get();
+            transferFile(
+                    sourceFs, targetFs, sourceFile, size, inputStream, outputStream, transferred, totalSize, start);
             inputStream.transferTo(OutputStream.nullOutputStream());
         } catch (Exception ex) {
             // Mark progress as finished to reset any progress display
@@ -404,10 +972,11 @@ public class BrowserFileTransferOperation {
         source.getFileSystem().delete(source.getPath());
     }
 
-    private static final int DEFAULT_BUFFER_SIZE = 1024;
-
     private void transferFile(
+            FileSystem sourceFs,
+            FileSystem targetFs,
             FileEntry sourceFile,
+            long size,
             InputStream inputStream,
             OutputStream outputStream,
             AtomicLong transferred,
@@ -417,67 +986,32 @@ public class BrowserFileTransferOperation {
         // Initialize progress immediately prior to reading anything
         updateProgress(new BrowserTransferProgress(sourceFile.getName(), transferred.get(), total.get(), start));
 
-        var killStreams = new AtomicBoolean(false);
-        var exception = new AtomicReference<Exception>();
-        var thread = ThreadHelper.createPlatformThread("transfer", true, () -> {
-            try {
-                var bs = (int) Math.min(DEFAULT_BUFFER_SIZE, sourceFile.getSize());
-                byte[] buffer = new byte[bs];
-                int read;
-                while ((read = inputStream.read(buffer, 0, bs)) > 0) {
-                    if (cancelled()) {
-                        killStreams.set(true);
-                        break;
-                    }
-
-                    if (!checkTransferValidity()) {
-                        killStreams.set(true);
-                        break;
-                    }
-
-                    outputStream.write(buffer, 0, read);
-                    transferred.addAndGet(read);
-                    updateProgress(new BrowserTransferProgress(sourceFile.getName(), transferred.get(), total.get(), start));
-                }
-            } catch (Exception ex) {
-                exception.set(ex);
-            }
-        });
-
-        thread.start();
-        while (true) {
-            var alive = thread.isAlive();
-            var cancelled = cancelled();
-
-            if (cancelled) {
-                // Assume that the transfer has stalled if it doesn't finish until then
-                thread.join(1000);
-                killStreams();
-                break;
-            }
-
-            if (alive) {
-                Thread.sleep(100);
-                continue;
-            }
-
-            if (killStreams.get()) {
-                killStreams();
+        var pipe = new BrowserFileTransferPipe(
+                inputStream,
+                outputStream,
+                () -> checkTransferValidity(sourceFs, targetFs),
+                transferred::addAndGet,
+                // Archive streams are slightly larger than the contained files
+                () -> updateProgress(new BrowserTransferProgress(
+                        sourceFile.getName(), Math.min(transferred.get(), total.get()), total.get(), start)));
+        activePipes.add(pipe);
+        try {
+            // The transfer might have been cancelled before the pipe was registered
+            if (cancelled()) {
+                pipe.stop();
             }
 
-            var ex = exception.get();
-            if (ex != null) {
-                throw ex;
-            } else {
-                break;
+            var result = pipe.run(size);
+            if (result != BrowserFileTransferPipe.Result.COMPLETED) {
+                killStreams(sourceFs, targetFs);
             }
+        } finally {
+            activePipes.remove(pipe);
         }
     }
 
-    private boolean checkTransferValidity() {
-        var sourceFs = files.getFirst().getFileSystem();
-        var targetFs = target.getFileSystem();
-        var same = files.getFirst().getFileSystem().equals(target.getFileSystem());
+    private boolean checkTransferValidity(FileSystem sourceFs, FileSystem targetFs) {
+        var same = sourceFs.equals(targetFs);
         if (!same) {
             var sourceShell = sourceFs.getShell().orElseThrow();
             var targetShell = targetFs.getShell().orElseThrow();
@@ -488,10 +1022,8 @@ public class BrowserFileTransferOperation {
         }
     }
 
-    private void killStreams() throws Exception {
-        var sourceFs = files.getFirst().getFileSystem();
-        var targetFs = target.getFileSystem();
-        var same = files.getFirst().getFileSystem().equals(target.getFileSystem());
+    private void killStreams(FileSystem sourceFs, FileSystem targetFs) throws Exception {
+        var same = sourceFs.equals(targetFs);
         if (!same) {
             var sourceShell = sourceFs.getShell().orElseThrow();
             var targetShell = targetFs.getShell().orElseThrow();
@@ -502,4 +1034,22 @@ public class BrowserFileTransferOperation {
             }
         }
     }
+
+    private record TransferJob(FileEntry source, long size, String targetFile) {}
+
+    private record TransferSession(FileSystem source, FileSystem target) {
+
+        void close() {
+            try {
+                source.close();
+            } catch (Exception e) {
+                ErrorEvent.fromThrowable(e).omit().expected().handle();
+            }
+            try {
+                target.close();
+            } catch (Exception e) {
+                ErrorEvent.fromThrowable(e).omit().expected().handle();
+            }
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package io.xpipe.app.browser.file;
+
+import io.xpipe.app.util.ThreadHelper;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Copies one stream into another with a separate reader thread, so that reading from the source and writing to the
+ * target can happen at the same time. Two buffers are passed back and forth between the reader and the writer.
+ * The buffers start small and grow as long as the source has enough data available to fill them with a single read.
+ */
+class BrowserFileTransferPipe {
+
+    static final int MIN_BUFFER_SIZE = 64 * 1024;
+    static final int MAX_BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final int BUFFER_COUNT = 2;
+    private static final Duration PROGRESS_INTERVAL = Duration.ofMillis(100);
+    private static final Chunk END = new Chunk(new byte[0], 0);
+
+    private final InputStream inputStream;
+    private final OutputStream outputStream;
+    private final BooleanSupplier valid;
+    private final LongConsumer written;
+    private final Runnable progress;
+    private final BlockingQueue<byte[]> free = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Chunk> filled = new LinkedBlockingQueue<>();
+    private final AtomicReference<Exception> exception = new AtomicReference<>();
+    private volatile boolean stopped;
+    private volatile int bufferSize;
+
+    BrowserFileTransferPipe(
+            InputStream inputStream,
+            OutputStream outputStream,
+            BooleanSupplier valid,
+            LongConsumer written,
+            Runnable progress) {
+        this.inputStream = inputStream;
+        this.outputStream = outputStream;
+        this.valid = valid;
+        this.written = written;
+        this.progress = progress;
+    }
+
+    /**
+     * Stops the transfer as soon as possible. This can be called from any thread.
+     */
+    void stop() {
+        stopped = true;
+        // Wake up the reader and writer if they are waiting for a buffer
+        free.add(new byte[0]);
+        filled.add(END);
+    }
+
+    Result run(long expectedSize) throws Exception {
+        bufferSize = (int) Math.max(1, Math.min(MIN_BUFFER_SIZE, expectedSize));
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            free.add(new byte[bufferSize]);
+        }
+
+        var reader = ThreadHelper.createPlatformThread("transfer reader", true, this::read);
+        reader.start();
+
+        Result result = null;
+        try {
+            result = write();
+        } finally {
+            if (result != Result.COMPLETED) {
+                stop();
+                // Assume that the transfer has stalled if it doesn't finish until then
+                reader.join(1000);
+            }
+        }
+        if (result != Result.COMPLETED) {
+            return result;
+        }
+
+        reader.join();
+        var ex = exception.get();
+        if (ex != null) {
+            throw ex;
+        }
+        return stopped ? Result.CANCELLED : Result.COMPLETED;
+    }
+
+    private void read() {
+        try {
+            while (!stopped) {
+                var buffer = free.take();
+                if (stopped) {
+                    break;
+                }
+
+                // Buffers are replaced once they are returned if a larger size is requested
+                if (buffer.length < bufferSize) {
+                    buffer = new byte[bufferSize];
+                }
+
+                // Only wait for the data that is currently available so that progress is reported on slow sources
+                var read = inputStream.read(buffer, 0, buffer.length);
+                if (read == -1) {
+                    break;
+                }
+
+                // The source had more data available than fits into the buffer
+                if (read == buffer.length && bufferSize < MAX_BUFFER_SIZE) {
+                    bufferSize = Math.min(bufferSize * 2, MAX_BUFFER_SIZE);
+                }
+
+                filled.add(new Chunk(buffer, read));
+            }
+        } catch (Exception ex) {
+            exception.set(ex);
+        } finally {
+            filled.add(END);
+        }
+    }
+
+    private Result write() throws Exception {
+        var lastProgress = Instant.EPOCH;
+        while (true) {
+            var chunk = filled.take();
+            if (chunk == END || stopped) {
+                break;
+            }
+
+            if (!valid.getAsBoolean()) {
+                return Result.INVALID;
+            }
+
+            outputStream.write(chunk.buffer(), 0, chunk.length());
+            free.add(chunk.buffer());
+            written.accept(chunk.length());
+
+            var now = Instant.now();
+            if (Duration.between(lastProgress, now).compareTo(PROGRESS_INTERVAL) >= 0) {
+                lastProgress = now;
+                progress.run();
+            }
+        }
+
+        if (stopped) {
+            return Result.CANCELLED;
+        }
+
+        progress.run();
+        return Result.COMPLETED;
+    }
+
+    enum Result {
+        COMPLETED,
+        CANCELLED,
+        INVALID
+    }
+
+    private record Chunk(byte[] buffer, int length) {}
+}
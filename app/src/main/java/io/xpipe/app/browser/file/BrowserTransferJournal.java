@@ -0,0 +1,101 @@
+package io.xpipe.app.browser.file;
+
+import io.xpipe.app.core.AppCache;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Keeps track of larger file transfers that did not complete, e.g. because they were cancelled or the connection
+ * was lost. Such transfers can then be resumed from the already transferred part of the target file.
+ * The state of the target file is recorded when a transfer is interrupted, so that a target that has been changed
+ * since then is not appended to.
+ */
+public class BrowserTransferJournal {
+
+    private static final String CACHE_KEY = "transferJournal";
+    private static final int MAX_ENTRIES = 1000;
+
+    private static BrowserTransferJournal INSTANCE;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public static synchronized BrowserTransferJournal get() {
+        if (INSTANCE == null) {
+            INSTANCE = new BrowserTransferJournal();
+            Entry[] loaded = AppCache.getNonNull(CACHE_KEY, Entry[].class, () -> new Entry[0]);
+            for (Entry entry : loaded) {
+                INSTANCE.entries.put(entry.getTarget(), entry);
+            }
+        }
+        return INSTANCE;
+    }
+
+    public synchronized Optional<Entry> get(String target) {
+        return Optional.ofNullable(entries.get(target));
+    }
+
+    public synchronized void start(Entry entry) {
+        entries.remove(entry.getTarget());
+        entries.put(entry.getTarget(), entry);
+        // Drop the oldest entries, these are unlikely to be resumed
+        var it = entries.keySet().iterator();
+        while (entries.size() > MAX_ENTRIES && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        save();
+    }
+
+    public synchronized void interrupt(String target, long targetSize, Long targetModified) {
+        var entry = entries.get(target);
+        if (entry == null) {
+            return;
+        }
+
+        entries.put(
+                target,
+                Entry.builder()
+                        .target(entry.getTarget())
+                        .source(entry.getSource())
+                        .size(entry.getSize())
+                        .modified(entry.getModified())
+                        .targetSize(targetSize)
+                        .targetModified(targetModified)
+                        .build());
+        save();
+    }
+
+    public synchronized void finish(String target) {
+        if (entries.remove(target) != null) {
+            save();
+        }
+    }
+
+    private void save() {
+        AppCache.update(CACHE_KEY, entries.values().toArray(Entry[]::new));
+    }
+
+    @Value
+    @Jacksonized
+    @Builder
+    public static class Entry {
+
+        String target;
+        String source;
+        long size;
+        Long modified;
+        Long targetSize;
+        Long targetModified;
+
+        public boolean isSameSource(Entry other) {
+            return source.equals(other.source) && size == other.size && Objects.equals(modified, other.modified);
+        }
+    }
+}
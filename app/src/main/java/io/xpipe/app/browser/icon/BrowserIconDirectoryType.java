@@ -85,6 +85,8 @@ public abstract class BrowserIconDirectoryType {
         private final String id;
 
         private final BrowserIconVariant closed;
+
+        @Getter
         private final Set<String> names;
 
         public Simple(String id, BrowserIconVariant closed, Set<String> names) {
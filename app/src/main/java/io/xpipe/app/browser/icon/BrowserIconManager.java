@@ -3,38 +3,193 @@ package io.xpipe.app.browser.icon;
 import io.xpipe.core.store.FileEntry;
 import io.xpipe.core.store.FileKind;
 
+import java.util.*;
+
 public class BrowserIconManager {
 
     private static boolean loaded;
+    private static volatile Lookup lookup = Lookup.build(List.of(), List.of());
 
     public static synchronized void loadIfNecessary() {
         if (!loaded) {
             BrowserIconFileType.loadDefinitions();
             BrowserIconDirectoryType.loadDefinitions();
+            lookup = Lookup.build(BrowserIconFileType.getAll(), BrowserIconDirectoryType.getAll());
             loaded = true;
         }
     }
 
-    public static synchronized String getFileIcon(FileEntry entry) {
+    public static BrowserIconFileType getFileType(FileEntry entry) {
+        if (entry == null) {
+            return null;
+        }
+
+        var r = entry.resolved();
+        if (r.getKind() == FileKind.DIRECTORY) {
+            return null;
+        }
+
+        return lookup.getFileType(r);
+    }
+
+    public static BrowserIconDirectoryType getDirectoryType(FileEntry entry) {
         if (entry == null) {
             return null;
         }
 
         var r = entry.resolved();
         if (r.getKind() != FileKind.DIRECTORY) {
-            for (var f : BrowserIconFileType.getAll()) {
-                if (f.matches(r)) {
-                    return f.getIcon();
-                }
+            return null;
+        }
+
+        return lookup.getDirectoryType(r);
+    }
+
+    public static String getFileIcon(FileEntry entry) {
+        if (entry == null) {
+            return null;
+        }
+
+        var r = entry.resolved();
+        if (r.getKind() != FileKind.DIRECTORY) {
+            var f = lookup.getFileType(r);
+            if (f != null) {
+                return f.getIcon();
             }
         } else {
-            for (var f : BrowserIconDirectoryType.getAll()) {
-                if (f.matches(r)) {
-                    return f.getIcon(r);
-                }
+            var f = lookup.getDirectoryType(r);
+            if (f != null) {
+                return f.getIcon(r);
             }
         }
 
         return "browser/" + (r.getKind() == FileKind.DIRECTORY ? "default_folder.svg" : "default_file.svg");
     }
+
+    private static String getFileName(String path) {
+        var end = path.length();
+        while (end > 0 && isSeparator(path.charAt(end - 1))) {
+            end--;
+        }
+
+        var start = end;
+        while (start > 0 && !isSeparator(path.charAt(start - 1))) {
+            start--;
+        }
+        return path.substring(start, end);
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == '\\';
+    }
+
+    private static String getExtension(String name) {
+        // Trailing dots are ignored, the same as FileNames.getExtension does
+        var end = name.length();
+        while (end > 0 && name.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (end == 0) {
+            return null;
+        }
+
+        return name.substring(name.lastIndexOf('.', end - 1) + 1, end);
+    }
+
+    /**
+     * Maps file names and extensions to their icon types, so that a type can be resolved without trying every type.
+     * If multiple types match, the one that comes first in the definition order is used, the same as when all types
+     * are checked one after another.
+     */
+    private record Lookup(
+            Map<String, Indexed<BrowserIconFileType>> filesByExtension,
+            Map<String, Indexed<BrowserIconFileType>> filesByName,
+            List<Indexed<BrowserIconFileType>> otherFiles,
+            Map<String, Indexed<BrowserIconDirectoryType>> directoriesByName,
+            List<Indexed<BrowserIconDirectoryType>> otherDirectories) {
+
+        private static Lookup build(List<BrowserIconFileType> files, List<BrowserIconDirectoryType> directories) {
+            var filesByExtension = new HashMap<String, Indexed<BrowserIconFileType>>();
+            var filesByName = new HashMap<String, Indexed<BrowserIconFileType>>();
+            var otherFiles = new ArrayList<Indexed<BrowserIconFileType>>();
+            for (int i = 0; i < files.size(); i++) {
+                var indexed = new Indexed<>(files.get(i), i);
+                if (!(files.get(i) instanceof BrowserIconFileType.Simple s)) {
+                    otherFiles.add(indexed);
+                    continue;
+                }
+
+                for (String ending : s.getEndings()) {
+                    if (ending.startsWith(".")) {
+                        filesByExtension.putIfAbsent(ending.substring(1), indexed);
+                    }
+                    filesByName.putIfAbsent(ending, indexed);
+                }
+            }
+
+            var directoriesByName = new HashMap<String, Indexed<BrowserIconDirectoryType>>();
+            var otherDirectories = new ArrayList<Indexed<BrowserIconDirectoryType>>();
+            for (int i = 0; i < directories.size(); i++) {
+                var indexed = new Indexed<>(directories.get(i), i);
+                if (!(directories.get(i) instanceof BrowserIconDirectoryType.Simple s)) {
+                    otherDirectories.add(indexed);
+                    continue;
+                }
+
+                for (String name : s.getNames()) {
+                    directoriesByName.putIfAbsent(name, indexed);
+                }
+            }
+
+            return new Lookup(
+                    Map.copyOf(filesByExtension),
+                    Map.copyOf(filesByName),
+                    List.copyOf(otherFiles),
+                    Map.copyOf(directoriesByName),
+                    List.copyOf(otherDirectories));
+        }
+
+        private BrowserIconFileType getFileType(FileEntry entry) {
+            var name = getFileName(entry.getPath());
+            var ext = getExtension(name);
+            var best = first(
+                    ext != null ? filesByExtension.get(ext.toLowerCase(Locale.ROOT)) : null, filesByName.get(name));
+            for (var other : otherFiles) {
+                if (best != null && best.index() < other.index()) {
+                    break;
+                }
+                if (other.type().matches(entry)) {
+                    best = other;
+                    break;
+                }
+            }
+            return best != null ? best.type() : null;
+        }
+
+        private BrowserIconDirectoryType getDirectoryType(FileEntry entry) {
+            var best = directoriesByName.get(getFileName(entry.getPath()));
+            for (var other : otherDirectories) {
+                if (best != null && best.index() < other.index()) {
+                    break;
+                }
+                if (other.type().matches(entry)) {
+                    best = other;
+                    break;
+                }
+            }
+            return best != null ? best.type() : null;
+        }
+
+        private static <T> Indexed<T> first(Indexed<T> a, Indexed<T> b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            return a.index() <= b.index() ? a : b;
+        }
+    }
+
+    private record Indexed<T>(T type, int index) {}
 }
@@ -96,7 +96,7 @@ public class StoreChoiceComp<T extends DataStore> extends SimpleComp {
             };
             var section = new StoreSectionMiniComp(
                     StoreSection.createTopLevel(
-                            StoreViewState.get().getAllEntries(),
+                            StoreViewState.get().getEntryTree(),
                             applicable,
                             filterText,
                             selectedCategory,
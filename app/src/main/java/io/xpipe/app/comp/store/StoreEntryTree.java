@@ -0,0 +1,163 @@
+package io.xpipe.app.comp.store;
+
+import io.xpipe.app.storage.DataStorage;
+import io.xpipe.app.storage.DataStoreEntry;
+import io.xpipe.app.util.DerivedObservableList;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ObservableIntegerValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Groups all store entry wrappers by their display parent. The children lists are only patched for the parents
+ * that are affected when entries are added, removed or moved, so sections don't have to scan all entries.
+ * This should only be accessed from the platform thread.
+ */
+public class StoreEntryTree {
+
+    @Getter
+    private final DerivedObservableList<StoreEntryWrapper> all;
+
+    private final Map<DataStoreEntry, StoreEntryWrapper> wrappers = new HashMap<>();
+    private final Map<StoreEntryWrapper, DataStoreEntry> parents = new HashMap<>();
+    private final Map<DataStoreEntry, DerivedObservableList<StoreEntryWrapper>> children = new HashMap<>();
+    private final InvalidationListener nameListener = observable -> version++;
+    private long version;
+    private long lastPathVersion;
+
+    public StoreEntryTree(DerivedObservableList<StoreEntryWrapper> all, ObservableIntegerValue updateObservable) {
+        this.all = all;
+        all.getList().forEach(this::add);
+        all.getList().addListener((ListChangeListener<? super StoreEntryWrapper>) c -> {
+            var removed = new ArrayList<StoreEntryWrapper>();
+            while (c.next()) {
+                c.getRemoved().forEach(this::remove);
+                c.getAddedSubList().forEach(this::add);
+                removed.addAll(c.getRemoved());
+            }
+            // Wrappers are sometimes removed and added again in the same change
+            for (StoreEntryWrapper w : removed) {
+                if (!wrappers.containsKey(w.getEntry())) {
+                    children.remove(w.getEntry());
+                }
+            }
+        });
+        updateObservable.addListener((observable, oldValue, newValue) -> version++);
+    }
+
+    /**
+     * Returns a version that changes whenever the result of filtering the tree might change.
+     */
+    public long getVersion() {
+        var pathVersion = DataStorage.get() != null ? DataStorage.get().getPathVersion() : 0;
+        if (pathVersion != lastPathVersion) {
+            lastPathVersion = pathVersion;
+            version++;
+        }
+        return version;
+    }
+
+    public DerivedObservableList<StoreEntryWrapper> getChildren(DataStoreEntry parent) {
+        var existing = children.get(parent);
+        if (existing != null) {
+            return existing;
+        }
+
+        var list = new DerivedObservableList<StoreEntryWrapper>(FXCollections.observableArrayList(), true);
+        children.put(parent, list);
+        refresh(parent);
+        return list;
+    }
+
+    /**
+     * Moves the wrapper of the entry to the children list of its new display parent.
+     */
+    public void move(DataStoreEntry entry) {
+        var w = wrappers.get(entry);
+        if (w == null) {
+            return;
+        }
+
+        var oldParent = parents.get(w);
+        var newParent = getParent(entry);
+        if (Objects.equals(oldParent, newParent)) {
+            return;
+        }
+
+        setParent(w, newParent);
+        refresh(oldParent);
+        refresh(newParent);
+    }
+
+    private void add(StoreEntryWrapper w) {
+        wrappers.put(w.getEntry(), w);
+        w.nameProperty().addListener(nameListener);
+        var parent = getParent(w.getEntry());
+        setParent(w, parent);
+        refresh(parent);
+        // Children might have been added before their parent
+        refresh(w.getEntry());
+    }
+
+    private void remove(StoreEntryWrapper w) {
+        w.nameProperty().removeListener(nameListener);
+        if (wrappers.get(w.getEntry()) == w) {
+            wrappers.remove(w.getEntry());
+        }
+        var parent = parents.remove(w);
+        refresh(parent);
+        version++;
+    }
+
+    private void setParent(StoreEntryWrapper w, DataStoreEntry parent) {
+        if (parent != null) {
+            parents.put(w, parent);
+        } else {
+            parents.remove(w);
+        }
+        version++;
+    }
+
+    private DataStoreEntry getParent(DataStoreEntry entry) {
+        return DataStorage.get() != null
+                ? DataStorage.get().getDefaultDisplayParent(entry).orElse(null)
+                : null;
+    }
+
+    private void refresh(DataStoreEntry parent) {
+        if (parent == null) {
+            return;
+        }
+
+        var list = children.get(parent);
+        if (list == null) {
+            return;
+        }
+
+        var found = new LinkedHashSet<StoreEntryWrapper>();
+        if (DataStorage.get() != null) {
+            for (DataStoreEntry child : DataStorage.get().getStoreChildren(parent)) {
+                var w = wrappers.get(child);
+                if (w != null) {
+                    found.add(w);
+                }
+            }
+        }
+
+        // Keep the existing order to not trigger unnecessary changes
+        var newContent = new ArrayList<StoreEntryWrapper>(found.size());
+        for (StoreEntryWrapper w : list.getList()) {
+            if (found.remove(w)) {
+                newContent.add(w);
+            }
+        }
+        newContent.addAll(found);
+        list.setContent(newContent);
+        version++;
+    }
+}
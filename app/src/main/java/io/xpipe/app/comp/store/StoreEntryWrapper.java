@@ -163,6 +163,8 @@ public class StoreEntryWrapper {
             return;
         }
 
+        StoreViewState.get().getSearchIndex().invalidate(this);
+
         // Avoid reupdating name when changed from the name property!
         if (!entry.getName().equals(name.getValue())) {
             name.setValue(entry.getName());
@@ -355,7 +357,16 @@ public class StoreEntryWrapper {
     }
 
     public boolean matchesFilter(String filter) {
-        if (filter == null || name.getValue().toLowerCase().contains(filter.toLowerCase())) {
+        if (filter == null) {
+            return true;
+        }
+
+        var state = StoreViewState.get();
+        if (state != null) {
+            return state.getSearchIndex().matches(this, filter);
+        }
+
+        if (name.getValue().toLowerCase().contains(filter.toLowerCase())) {
             return true;
         }
 
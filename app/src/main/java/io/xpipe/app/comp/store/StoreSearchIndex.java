@@ -0,0 +1,148 @@
+package io.xpipe.app.comp.store;
+
+import io.xpipe.app.storage.DataStorage;
+import io.xpipe.core.store.DataStore;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the lowercased names, store paths and searchable terms of all entries, so that filtering does not have to
+ * compute them again for every entry on every keystroke. Cached terms are discarded when an entry is updated.
+ * The score is used to show the best matches first while a filter is active.
+ */
+public class StoreSearchIndex {
+
+    private static final int EXACT_SCORE = 100;
+    private static final int PREFIX_SCORE = 80;
+    private static final int WORD_PREFIX_SCORE = 70;
+    private static final int NAME_SCORE = 60;
+    private static final int TERM_SCORE = 40;
+    private static final int PATH_SCORE = 30;
+    private static final int FUZZY_SCORE = 10;
+
+    private final Map<StoreEntryWrapper, Terms> terms = new ConcurrentHashMap<>();
+    private final Map<StoreEntryWrapper, Path> paths = new ConcurrentHashMap<>();
+    private volatile Filter lastFilter;
+
+    public void invalidate(StoreEntryWrapper wrapper) {
+        terms.remove(wrapper);
+        paths.remove(wrapper);
+    }
+
+    /**
+     * Checks whether the name or any searchable term of the entry contains the filter.
+     */
+    public boolean matches(StoreEntryWrapper wrapper, String filter) {
+        if (filter == null) {
+            return true;
+        }
+
+        var f = getFilter(filter);
+        var t = getTerms(wrapper);
+        return t.name().contains(f.lower()) || t.terms().stream().anyMatch(s -> s.contains(f.lower()));
+    }
+
+    /**
+     * Rates how well the entry matches the filter. Exact and prefix matches of the name rank highest, followed by
+     * substring matches of the name, the searchable terms and the store path. Names that only contain the characters
+     * of the filter in the same order rank lowest. A score of zero means no match.
+     */
+    public int score(StoreEntryWrapper wrapper, String filter) {
+        if (filter == null || filter.isEmpty()) {
+            return 0;
+        }
+
+        var f = getFilter(filter).lower();
+        var t = getTerms(wrapper);
+        if (t.name().equals(f)) {
+            return EXACT_SCORE;
+        }
+        if (t.name().startsWith(f)) {
+            return PREFIX_SCORE;
+        }
+
+        var index = t.name().indexOf(f);
+        if (index != -1) {
+            return !Character.isLetterOrDigit(t.name().charAt(index - 1)) ? WORD_PREFIX_SCORE : NAME_SCORE;
+        }
+        if (t.terms().stream().anyMatch(s -> s.contains(f))) {
+            return TERM_SCORE;
+        }
+        if (getPath(wrapper).contains(f)) {
+            return PATH_SCORE;
+        }
+        return isSubsequence(f, t.name()) ? FUZZY_SCORE : 0;
+    }
+
+    private static boolean isSubsequence(String filter, String s) {
+        var index = 0;
+        for (int i = 0; i < s.length() && index < filter.length(); i++) {
+            if (s.charAt(i) == filter.charAt(index)) {
+                index++;
+            }
+        }
+        return index == filter.length();
+    }
+
+    private Filter getFilter(String filter) {
+        var f = lastFilter;
+        if (f != null && f.raw().equals(filter)) {
+            return f;
+        }
+
+        f = new Filter(filter, filter.toLowerCase(Locale.ROOT));
+        lastFilter = f;
+        return f;
+    }
+
+    private Terms getTerms(StoreEntryWrapper wrapper) {
+        var entry = wrapper.getEntry();
+        var name = wrapper.nameProperty().getValue();
+        var store = entry.getStore();
+        var t = terms.get(wrapper);
+        // The name and store might change before the entry is updated
+        if (t != null && t.rawName() == name && t.store() == store) {
+            return t;
+        }
+
+        List<String> searchable = List.of();
+        if (entry.getValidity().isUsable()) {
+            try {
+                searchable = entry.getProvider().getSearchableTerms(store).stream()
+                        .filter(Objects::nonNull)
+                        .map(s -> s.toLowerCase(Locale.ROOT))
+                        .toList();
+            } catch (Exception ignored) {
+            }
+        }
+
+        t = new Terms(name, store, name != null ? name.toLowerCase(Locale.ROOT) : "", searchable);
+        terms.put(wrapper, t);
+        return t;
+    }
+
+    private String getPath(StoreEntryWrapper wrapper) {
+        var storage = DataStorage.get();
+        if (storage == null) {
+            return "";
+        }
+
+        // Paths include the names of all parents, so they have to be recomputed if any entry is renamed or moved
+        var version = storage.getPathVersion();
+        var path = paths.get(wrapper);
+        if (path != null && path.version() == version) {
+            return path.value();
+        }
+
+        path = new Path(storage.getStorePath(wrapper.getEntry()).toString(), version);
+        paths.put(wrapper, path);
+        return path.value();
+    }
+
+    private record Filter(String raw, String lower) {}
+
+    private record Path(String value, long version) {}
+
+    private record Terms(String rawName, DataStore store, String name, List<String> terms) {}
+}
@@ -7,6 +7,7 @@ import io.xpipe.app.storage.DataStoreEntry;
 import io.xpipe.app.util.BindingsHelper;
 import io.xpipe.app.util.DerivedObservableList;
 
+import javafx.beans.Observable;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.value.ObservableBooleanValue;
@@ -14,13 +15,17 @@ import javafx.beans.value.ObservableIntegerValue;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
 @Getter
 public class StoreSection {
@@ -31,6 +36,27 @@ public class StoreSection {
     private final int depth;
     private final ObservableBooleanValue showDetails;
 
+    @Getter(AccessLevel.NONE)
+    private LongSupplier filterVersion;
+
+    @Getter(AccessLevel.NONE)
+    private String memoizedFilter;
+
+    @Getter(AccessLevel.NONE)
+    private long memoizedFilterVersion = -1;
+
+    @Getter(AccessLevel.NONE)
+    private boolean memoizedFilterMatch;
+
+    @Getter(AccessLevel.NONE)
+    private String memoizedScoreFilter;
+
+    @Getter(AccessLevel.NONE)
+    private long memoizedScoreVersion = -1;
+
+    @Getter(AccessLevel.NONE)
+    private int memoizedScore;
+
     public StoreSection(
             StoreEntryWrapper wrapper,
             DerivedObservableList<StoreSection> allChildren,
@@ -65,6 +91,7 @@ public class StoreSection {
     private static DerivedObservableList<StoreSection> sorted(
             DerivedObservableList<StoreSection> list,
             ObservableValue<StoreCategoryWrapper> category,
+            ObservableValue<String> filterString,
             ObservableIntegerValue updateObservable) {
         var explicitOrderComp = Comparator.<StoreSection>comparingInt(new ToIntFunction<>() {
             @Override
@@ -94,6 +121,15 @@ public class StoreSection {
                         return r;
                     }
 
+                    // While searching, the best matches come first
+                    var filter = filterString != null ? filterString.getValue() : null;
+                    if (filter != null && !filter.isEmpty()) {
+                        var score = Integer.compare(o2.getFilterScore(filter), o1.getFilterScore(filter));
+                        if (score != 0) {
+                            return score;
+                        }
+                    }
+
                     var current = mappedSortMode.getValue();
                     if (current != null) {
                         return current.comparator().compare(o1, o2);
@@ -101,17 +137,18 @@ public class StoreSection {
                         return 0;
                     }
                 },
-                mappedSortMode,
-                updateObservable);
+                Stream.of(mappedSortMode, filterString, updateObservable)
+                        .filter(Objects::nonNull)
+                        .toArray(Observable[]::new));
     }
 
     public static StoreSection createTopLevel(
-            DerivedObservableList<StoreEntryWrapper> all,
+            StoreEntryTree tree,
             Predicate<StoreEntryWrapper> entryFilter,
             ObservableValue<String> filterString,
             ObservableValue<StoreCategoryWrapper> category,
             ObservableIntegerValue updateObservable) {
-        var topLevel = all.filtered(
+        var topLevel = tree.getAll().filtered(
                 section -> {
                     return DataStorage.get()
                             .isRootEntry(section.getEntry(), category.getValue().getCategory());
@@ -119,8 +156,8 @@ public class StoreSection {
                 category,
                 updateObservable);
         var cached = topLevel.mapped(storeEntryWrapper ->
-                create(List.of(), storeEntryWrapper, 1, all, entryFilter, filterString, category, updateObservable));
-        var ordered = sorted(cached, category, updateObservable);
+                create(List.of(), storeEntryWrapper, 1, tree, entryFilter, filterString, category, updateObservable));
+        var ordered = sorted(cached, category, filterString, updateObservable);
         var shown = ordered.filtered(
                 section -> {
                     // matches filter
@@ -142,7 +179,7 @@ public class StoreSection {
             List<StoreEntryWrapper> parents,
             StoreEntryWrapper e,
             int depth,
-            DerivedObservableList<StoreEntryWrapper> all,
+            StoreEntryTree tree,
             Predicate<StoreEntryWrapper> entryFilter,
             ObservableValue<String> filterString,
             ObservableValue<StoreCategoryWrapper> category,
@@ -155,35 +192,25 @@ public class StoreSection {
                     depth);
         }
 
-        var allChildren = all.filtered(
-                other -> {
-                    // Legacy implementation that does not use children caches. Use for testing
-                    //                                if (true) return DataStorage.get()
-                    //                                        .getDefaultDisplayParent(other.getEntry())
-                    //                                        .map(found -> found.equals(e.getEntry()))
-                    //                                        .orElse(false);
-
-                    // is children. This check is fast as the children are cached in the storage
-                    if (DataStorage.get() == null
-                            || !DataStorage.get().getStoreChildren(e.getEntry()).contains(other.getEntry())) {
-                        return false;
-                    }
-
-                    var showProvider = true;
-                    try {
-                        showProvider = other.getEntry().getProvider().shouldShow(other);
-                    } catch (Exception ignored) {
-                    }
-                    return showProvider;
-                },
-                e.getPersistentState(),
-                e.getCache(),
-                updateObservable);
+        // The children are grouped in the tree, so we only have to look at the children of this entry
+        var allChildren = tree.getChildren(e.getEntry())
+                .filtered(
+                        other -> {
+                            var showProvider = true;
+                            try {
+                                showProvider = other.getEntry().getProvider().shouldShow(other);
+                            } catch (Exception ignored) {
+                            }
+                            return showProvider;
+                        },
+                        e.getPersistentState(),
+                        e.getCache(),
+                        updateObservable);
         var l = new ArrayList<>(parents);
         l.add(e);
         var cached = allChildren.mapped(
-                c -> create(l, c, depth + 1, all, entryFilter, filterString, category, updateObservable));
-        var ordered = sorted(cached, category, updateObservable);
+                c -> create(l, c, depth + 1, tree, entryFilter, filterString, category, updateObservable));
+        var ordered = sorted(cached, category, filterString, updateObservable);
         var filtered = ordered.filtered(
                 section -> {
                     // matches filter
@@ -212,7 +239,9 @@ public class StoreSection {
                 e.getPersistentState(),
                 e.getCache(),
                 updateObservable);
-        return new StoreSection(e, cached, filtered, depth);
+        var section = new StoreSection(e, cached, filtered, depth);
+        section.filterVersion = tree::getVersion;
+        return section;
     }
 
     private static boolean showInCategory(StoreCategoryWrapper categoryWrapper, StoreEntryWrapper entryWrapper) {
@@ -235,7 +264,49 @@ public class StoreSection {
     }
 
     public boolean matchesFilter(String filter) {
-        return anyMatches(storeEntryWrapper -> storeEntryWrapper.matchesFilter(filter));
+        if (filterVersion == null) {
+            return anyMatches(storeEntryWrapper -> storeEntryWrapper.matchesFilter(filter));
+        }
+
+        // Every section also checks its parents, so remember the result until anything changes
+        var version = filterVersion.getAsLong();
+        if (version == memoizedFilterVersion && Objects.equals(filter, memoizedFilter)) {
+            return memoizedFilterMatch;
+        }
+
+        var match = (wrapper != null && wrapper.matchesFilter(filter))
+                || allChildren.getList().stream().anyMatch(section -> section.matchesFilter(filter));
+        memoizedFilter = filter;
+        memoizedFilterVersion = version;
+        memoizedFilterMatch = match;
+        return match;
+    }
+
+    /**
+     * Returns the best search score of this entry and its children, as parents are also shown for matching children.
+     */
+    public int getFilterScore(String filter) {
+        var state = StoreViewState.get();
+        if (state == null) {
+            return 0;
+        }
+
+        var version = filterVersion != null ? filterVersion.getAsLong() : -1;
+        if (filterVersion != null && version == memoizedScoreVersion && Objects.equals(filter, memoizedScoreFilter)) {
+            return memoizedScore;
+        }
+
+        var own = wrapper != null ? state.getSearchIndex().score(wrapper, filter) : 0;
+        var score = Math.max(
+                own,
+                allChildren.getList().stream()
+                        .mapToInt(section -> section.getFilterScore(filter))
+                        .max()
+                        .orElse(0));
+        memoizedScoreFilter = filter;
+        memoizedScoreVersion = version;
+        memoizedScore = score;
+        return score;
     }
 
     public boolean anyMatches(Predicate<StoreEntryWrapper> c) {
@@ -42,6 +42,12 @@ public class StoreViewState {
     @Getter
     private final Property<StoreSortMode> sortMode = new SimpleObjectProperty<>();
 
+    @Getter
+    private final StoreSearchIndex searchIndex = new StoreSearchIndex();
+
+    @Getter
+    private StoreEntryTree entryTree;
+
     @Getter
     private StoreSection currentTopLevelSection;
 
@@ -86,9 +92,10 @@ public class StoreViewState {
     }
 
     private void initSections() {
+        entryTree = new StoreEntryTree(allEntries, entriesListUpdateObservable);
         try {
             currentTopLevelSection = StoreSection.createTopLevel(
-                    allEntries, storeEntryWrapper -> true, filter, activeCategory, entriesListUpdateObservable);
+                    entryTree, storeEntryWrapper -> true, filter, activeCategory, entriesListUpdateObservable);
         } catch (Exception exception) {
             currentTopLevelSection = new StoreSection(
                     null,
@@ -245,10 +252,23 @@ public class StoreViewState {
                     synchronized (this) {
                         allEntries.getList().removeAll(l);
                     }
+                    l.forEach(searchIndex::invalidate);
                     cats.forEach(storeCategoryWrapper -> storeCategoryWrapper.update());
                 });
             }
 
+            @Override
+            public void onStoreParentChange(DataStoreEntry entry) {
+                Platform.runLater(() -> {
+                    // Don't update anything if we have already reset
+                    if (INSTANCE == null || entryTree == null) {
+                        return;
+                    }
+
+                    entryTree.move(entry);
+                });
+            }
+
             @Override
             public void onCategoryAdd(DataStoreCategory category) {
                 var l = new StoreCategoryWrapper(category);
@@ -256,11 +256,15 @@ public class AppLogs {
         logEvent(event);
     }
 
-    public synchronized void logEvent(TrackEvent event) {
+    public boolean isLogged(String type) {
         var li = LOG_LEVELS.indexOf(determineLogLevel());
         int i = li == -1 ? 5 : li;
-        int current = LOG_LEVELS.indexOf(event.getType());
-        if (current <= i) {
+        int current = LOG_LEVELS.indexOf(type);
+        return current <= i;
+    }
+
+    public synchronized void logEvent(TrackEvent event) {
+        if (isLogged(event.getType())) {
             if (writeToSysout) {
                 logSysOut(event);
             }
@@ -36,6 +36,7 @@ public class AppProperties {
 
     boolean staging;
     boolean useVirtualThreads;
+    int beaconHandlerThreads;
     boolean debugThreads;
     Path dataDir;
     Path defaultDataDir;
@@ -102,6 +103,9 @@ public class AppProperties {
         useVirtualThreads = Optional.ofNullable(System.getProperty("io.xpipe.app.useVirtualThreads"))
                 .map(Boolean::parseBoolean)
                 .orElse(true);
+        beaconHandlerThreads = Optional.ofNullable(System.getProperty("io.xpipe.app.beaconHandlerThreads"))
+                .map(Integer::parseInt)
+                .orElse(0);
         debugThreads = Optional.ofNullable(System.getProperty("io.xpipe.app.debugThreads"))
                 .map(Boolean::parseBoolean)
                 .orElse(false);
@@ -20,6 +20,7 @@ import lombok.Getter;
 import lombok.SneakyThrows;
 
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 public abstract class OperationMode {
 
@@ -29,7 +30,9 @@ public abstract class OperationMode {
     private static final List<OperationMode> ALL = List.of(BACKGROUND, TRAY, GUI);
 
     @Getter
-    private static boolean inStartup;
+    private static volatile boolean inStartup;
+
+    private static final CountDownLatch STARTUP_COMPLETED = new CountDownLatch(1);
 
     @Getter
     private static boolean inShutdown;
@@ -169,7 +172,7 @@ public abstract class OperationMode {
 
         if (AppProperties.get().isAotTrainMode()) {
             OperationMode.switchToSyncOrThrow(BACKGROUND);
-            inStartup = false;
+            completeStartup();
             // Linux runners don't support graphics
             if (OsType.getLocal() != OsType.LINUX) {
                 OperationMode.switchToSyncOrThrow(OperationMode.GUI);
@@ -182,10 +185,21 @@ public abstract class OperationMode {
         switchToSyncOrThrow(map(startupMode));
         // If it doesn't find time, the JVM will not gc the startup workload
         System.gc();
-        inStartup = false;
+        completeStartup();
         AppOpenArguments.init();
     }
 
+    private static void completeStartup() {
+        inStartup = false;
+        STARTUP_COMPLETED.countDown();
+    }
+
+    public static void waitForStartupCompletion() throws InterruptedException {
+        if (isInStartup()) {
+            STARTUP_COMPLETED.await();
+        }
+    }
+
     public static void switchToAsync(OperationMode newMode) {
         ThreadHelper.createPlatformThread("mode switcher", false, () -> {
                     switchToSyncIfPossible(newMode);
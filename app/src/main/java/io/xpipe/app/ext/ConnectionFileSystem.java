@@ -1,11 +1,13 @@
 package io.xpipe.app.ext;
 
 import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.storage.DataStorage;
 import io.xpipe.app.util.Hyperlinks;
 import io.xpipe.core.process.CommandBuilder;
 import io.xpipe.core.process.ShellControl;
 import io.xpipe.core.store.FileEntry;
 import io.xpipe.core.store.FileSystem;
+import io.xpipe.core.util.FailableFunction;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
@@ -15,11 +17,14 @@ import java.io.OutputStream;
 import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 @Getter
 public class ConnectionFileSystem implements FileSystem {
 
+    private static final Duration LOCK_WAIT = Duration.ofMillis(300);
+
     @JsonIgnore
     protected final ShellControl shellControl;
 
@@ -29,8 +34,10 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public long getFileSize(String file) throws Exception {
-        return Long.parseLong(
+        var size = Long.parseLong(
                 shellControl.getShellDialect().queryFileSize(shellControl, file).readStdoutOrThrow());
+        ShellSessionHealth.get().markAlive(shellControl);
+        return size;
     }
 
     @Override
@@ -65,27 +72,30 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public InputStream openInput(String file) throws Exception {
-        return shellControl
+        var in = shellControl
                 .getShellDialect()
                 .getFileReadCommand(shellControl, file)
                 .startExternalStdout();
+        ShellSessionHealth.get().markAlive(shellControl);
+        return in;
     }
 
     @Override
     public OutputStream openOutput(String file, long totalBytes) throws Exception {
         var cmd = shellControl.getShellDialect().createStreamFileWriteCommand(shellControl, file, totalBytes);
         cmd.setExitTimeout(Duration.ofMillis(Long.MAX_VALUE));
-        return cmd.startExternalStdin();
+        var out = cmd.startExternalStdin();
+        ShellSessionHealth.get().markAlive(shellControl);
+        return out;
     }
 
     @Override
     public boolean fileExists(String file) throws Exception {
-        try (var pc = shellControl
-                .getShellDialect()
-                .createFileExistsCommand(shellControl, file)
-                .start()) {
-            return pc.discardAndCheckExit();
-        }
+        return runReadOnly(sc -> {
+            try (var pc = sc.getShellDialect().createFileExistsCommand(sc, file).start()) {
+                return pc.discardAndCheckExit();
+            }
+        });
     }
 
     @Override
@@ -166,7 +176,47 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public Stream<FileEntry> listFiles(String file) throws Exception {
-        return shellControl.getShellDialect().listFiles(this, shellControl, file);
+        return runReadOnly(sc -> {
+            // The listing has to be read completely before the shell can be used for something else
+            try (var stream = sc.getShellDialect().listFiles(this, sc, file)) {
+                return stream.toList();
+            }
+        })
+                .stream();
+    }
+
+    private <T> T runReadOnly(FailableFunction<ShellControl, T, Exception> function) throws Exception {
+        // Only use a pooled shell if our shell is busy with something else for a longer time
+        var lock = shellControl.getLock();
+        if (lock.tryLock(LOCK_WAIT.toMillis(), TimeUnit.MILLISECONDS)) {
+            try {
+                var result = function.apply(shellControl);
+                ShellSessionHealth.get().markAlive(shellControl);
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Pooled shells are new connections of the store, so they would not run as the same user as an elevated shell
+        if (!ShellSessionPool.isStoreShell(shellControl)) {
+            return function.apply(shellControl);
+        }
+
+        var entry = DataStorage.get()
+                .getStoreEntryIfPresent(shellControl.getSourceStoreId().orElseThrow());
+        if (entry.isEmpty()) {
+            return function.apply(shellControl);
+        }
+
+        var lease = ShellSessionPool.get().tryLease(entry.get());
+        if (lease.isEmpty()) {
+            return function.apply(shellControl);
+        }
+
+        try (var l = lease.get()) {
+            return function.apply(l.getControl());
+        }
     }
 
     @Override
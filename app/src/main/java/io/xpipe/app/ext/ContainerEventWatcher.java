@@ -0,0 +1,236 @@
+package io.xpipe.app.ext;
+
+import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.issue.TrackEvent;
+import io.xpipe.app.prefs.AppPrefs;
+import io.xpipe.app.storage.DataStorage;
+import io.xpipe.app.storage.DataStoreEntry;
+import io.xpipe.app.util.ThreadHelper;
+import io.xpipe.core.process.CommandControl;
+import io.xpipe.core.process.ShellControl;
+import io.xpipe.core.store.DataStore;
+import io.xpipe.core.store.StatefulDataStore;
+import io.xpipe.core.util.JacksonMapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the states of the containers of a container host up to date by following the event stream of the host,
+ * e.g. podman events or lxc monitor, instead of polling. The stream runs on a separate connection to the host and
+ * is resubscribed automatically when it ends. As events might be lost in the meantime, all containers are listed
+ * again whenever the stream is resubscribed. Changes to the set of containers often arrive in bursts, so the resulting
+ * listings are coalesced.
+ */
+public abstract class ContainerEventWatcher {
+
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+    private static final Duration REFRESH_DELAY = Duration.ofMillis(500);
+    private static final Map<DataStoreEntry, ContainerEventWatcher> WATCHERS = new HashMap<>();
+    private static boolean listening;
+
+    protected final DataStoreEntry entry;
+    private volatile boolean stopped;
+    private volatile ShellControl control;
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+    protected ContainerEventWatcher(DataStoreEntry entry) {
+        this.entry = entry;
+    }
+
+    /**
+     * Starts watching the events of the container host entry if watching is enabled and there is no watcher yet.
+     */
+    public static synchronized void watch(DataStoreEntry entry, Supplier<ContainerEventWatcher> watcher) {
+        var prefs = AppPrefs.get();
+        if (prefs == null || !prefs.watchContainerEvents().get() || WATCHERS.containsKey(entry)) {
+            return;
+        }
+
+        if (!listening) {
+            listening = true;
+            prefs.watchContainerEvents().addListener((observable, oldValue, newValue) -> {
+                if (!newValue) {
+                    stopAll();
+                }
+            });
+        }
+
+        var w = watcher.get();
+        WATCHERS.put(entry, w);
+        ThreadHelper.createPlatformThread("container events " + entry.getName(), true, w::run)
+                .start();
+    }
+
+    public static synchronized void stopAll() {
+        new ArrayList<>(WATCHERS.values()).forEach(ContainerEventWatcher::stop);
+        WATCHERS.clear();
+    }
+
+    protected abstract ShellStore getHost();
+
+    protected abstract CommandControl createEventCommand(ShellControl sc);
+
+    protected abstract Optional<Event> parseEvent(JsonNode node);
+
+    protected abstract Optional<String> getContainerName(DataStore child);
+
+    public void stop() {
+        stopped = true;
+        var c = control;
+        if (c != null) {
+            c.kill();
+        }
+    }
+
+    private boolean isActive() {
+        return !stopped && DataStorage.get().getStoreEntryIfPresent(entry.getUuid()).isPresent();
+    }
+
+    private void run() {
+        var backoff = MIN_BACKOFF;
+        // The watcher is started after the containers have been listed
+        var first = true;
+        while (isActive()) {
+            var start = Instant.now();
+            var refresh = !first;
+            first = false;
+            try (var sc = getHost().standaloneControl().start()) {
+                control = sc;
+                if (stopped) {
+                    break;
+                }
+
+                // Events that occurred while we were not subscribed are lost
+                if (refresh) {
+                    DataStorage.get().refreshChildren(entry);
+                }
+                follow(sc);
+            } catch (Exception ex) {
+                if (!stopped) {
+                    ErrorEvent.fromThrowable(ex).omit().expected().handle();
+                }
+            } finally {
+                control = null;
+            }
+
+            if (!isActive()) {
+                break;
+            }
+
+            // Reset the backoff if the previous subscription worked for some time
+            if (Duration.between(start, Instant.now()).compareTo(MAX_BACKOFF) > 0) {
+                backoff = MIN_BACKOFF;
+            }
+            TrackEvent.withDebug("Container event stream ended, resubscribing")
+                    .tag("entry", entry.getName())
+                    .tag("backoffMs", backoff.toMillis())
+                    .handle();
+            ThreadHelper.sleep(backoff.toMillis());
+            backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+        }
+
+        synchronized (ContainerEventWatcher.class) {
+            WATCHERS.remove(entry, this);
+        }
+    }
+
+    private void follow(ShellControl sc) throws Exception {
+        try (var c = createEventCommand(sc).start()) {
+            // Events might be printed on one or multiple lines, so let the parser determine the boundaries
+            try (MappingIterator<JsonNode> it =
+                    JacksonMapper.getDefault().readerFor(JsonNode.class).readValues(c.getStdout())) {
+                while (!stopped && it.hasNextValue()) {
+                    var node = it.nextValue();
+                    parseEvent(node).ifPresent(this::apply);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(Event event) {
+        if (event.containerState() == null) {
+            scheduleRefresh();
+            return;
+        }
+
+        for (DataStoreEntry child : DataStorage.get().getStoreChildren(entry)) {
+            if (!(child.getStore() instanceof StatefulDataStore<?> s)
+                    || !getContainerName(child.getStore())
+                            .map(n -> n.equals(event.containerName()))
+                            .orElse(false)) {
+                continue;
+            }
+
+            if (!(s.getState() instanceof ContainerStoreState state)) {
+                continue;
+            }
+
+            ((StatefulDataStore<ContainerStoreState>) s)
+                    .setState(state.toBuilder()
+                            .containerState(event.containerState())
+                            .running(event.running())
+                            .build());
+        }
+    }
+
+    private void scheduleRefresh() {
+        // Further events until the refresh starts are covered by it
+        if (!refreshScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        ThreadHelper.runAsync(() -> {
+            ThreadHelper.sleep(REFRESH_DELAY.toMillis());
+            refreshScheduled.set(false);
+            if (isActive()) {
+                DataStorage.get().refreshChildren(entry);
+            }
+        });
+    }
+
+    /**
+     * Parses a lifecycle event as printed by lxc monitor and incus monitor with the json format.
+     */
+    protected static Optional<Event> parseLifecycleEvent(JsonNode node) {
+        if (!"lifecycle".equals(node.path("type").asText())) {
+            return Optional.empty();
+        }
+
+        // Older versions still use container instead of instance
+        var action = node.path("metadata").path("action").asText("").replace("container-", "instance-");
+        var source = node.path("metadata").path("source").asText("");
+        var query = source.indexOf('?');
+        if (query != -1) {
+            source = source.substring(0, query);
+        }
+        var segments = source.split("/");
+        // Only events for instances themselves are relevant, not for their snapshots or backups
+        if (segments.length != 4 || (!segments[2].equals("instances") && !segments[2].equals("containers"))) {
+            return Optional.empty();
+        }
+
+        var name = segments[3];
+        return switch (action) {
+            case "instance-started", "instance-restarted", "instance-resumed" ->
+                Optional.of(new Event(name, "RUNNING", true));
+            case "instance-stopped", "instance-shutdown" -> Optional.of(new Event(name, "STOPPED", false));
+            case "instance-paused" -> Optional.of(new Event(name, "FROZEN", false));
+            case "instance-created", "instance-deleted", "instance-renamed" -> Optional.of(new Event(name, null, false));
+            default -> Optional.empty();
+        };
+    }
+
+    /**
+     * A state change of a container. If the container state is null, the set of containers has changed.
+     */
+    public record Event(String containerName, String containerState, boolean running) {}
+}
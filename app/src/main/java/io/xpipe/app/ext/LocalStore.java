@@ -33,6 +33,11 @@ public class LocalStore implements NetworkTunnelStore, ShellStore, StatefulDataS
         };
     }
 
+    @Override
+    public boolean canStartWithoutPrompt() {
+        return true;
+    }
+
     @Override
     public DataStore getNetworkParent() {
         return null;
@@ -0,0 +1,140 @@
+package io.xpipe.app.ext;
+
+import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.issue.TrackEvent;
+import io.xpipe.app.prefs.AppPrefs;
+import io.xpipe.app.util.ThreadHelper;
+import io.xpipe.core.process.ShellControl;
+import io.xpipe.core.process.WrapperShellControl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Tracks when shell sessions were last known to be alive, so that they only have to be probed with a round trip
+ * once they have been idle for some time. Any successful command or stream counts as a sign of life.
+ * Pinned sessions, which are expected to stay open for a long time, are probed in the background.
+ */
+public class ShellSessionHealth {
+
+    private static final Duration MIN_IDLE_WINDOW = Duration.ofSeconds(1);
+    private static final Duration DEFAULT_IDLE_WINDOW = Duration.ofSeconds(10);
+    private static final ShellSessionHealth INSTANCE = new ShellSessionHealth();
+
+    private final Map<ShellControl, Status> statuses = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Set<ShellControl> pinned =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private Thread keepAliveThread;
+
+    public static ShellSessionHealth get() {
+        return INSTANCE;
+    }
+
+    public Duration getIdleWindow() {
+        var prefs = AppPrefs.get();
+        // The keepalive sleeps for this window, so it can't be too small
+        return prefs != null
+                ? Duration.ofMillis(Math.max(MIN_IDLE_WINDOW.toMillis(), prefs.shellSessionIdleWindow().get()))
+                : DEFAULT_IDLE_WINDOW;
+    }
+
+    private static ShellControl unwrap(ShellControl sc) {
+        // Sessions are handed out wrapped, but the status belongs to the actual session
+        while (sc instanceof WrapperShellControl w) {
+            sc = w.getParent();
+        }
+        return sc;
+    }
+
+    public Optional<Status> getStatus(ShellControl sc) {
+        return Optional.ofNullable(statuses.get(unwrap(sc)));
+    }
+
+    public void markAlive(ShellControl sc) {
+        statuses.compute(unwrap(sc), (k, s) -> new Status(Instant.now(), s != null ? s.latency() : null));
+    }
+
+    public void invalidate(ShellControl sc) {
+        statuses.remove(unwrap(sc));
+    }
+
+    public boolean isRecentlyAlive(ShellControl sc) {
+        var status = statuses.get(unwrap(sc));
+        return status != null && status.lastAlive().isAfter(Instant.now().minus(getIdleWindow()));
+    }
+
+    public void probe(ShellControl sc) throws Exception {
+        var start = System.nanoTime();
+        try {
+            sc.command(" echo xpipetest").execute();
+        } catch (Exception ex) {
+            invalidate(sc);
+            throw ex;
+        }
+        var latency = Duration.ofNanos(System.nanoTime() - start);
+        statuses.put(unwrap(sc), new Status(Instant.now(), latency));
+        TrackEvent.withTrace("Probed shell session")
+                .tag("latencyMs", latency.toMillis())
+                .handle();
+    }
+
+    /**
+     * Keeps the session alive with background probes until it is unpinned or exits.
+     */
+    public void pin(ShellControl sc) {
+        pinned.add(unwrap(sc));
+        startKeepAliveIfNeeded();
+    }
+
+    public void unpin(ShellControl sc) {
+        pinned.remove(unwrap(sc));
+    }
+
+    private synchronized void startKeepAliveIfNeeded() {
+        if (keepAliveThread != null) {
+            return;
+        }
+
+        keepAliveThread = ThreadHelper.createPlatformThread("shell keepalive", true, () -> {
+            while (true) {
+                ThreadHelper.sleep(getIdleWindow().toMillis());
+                keepAlive();
+            }
+        });
+        keepAliveThread.start();
+    }
+
+    private void keepAlive() {
+        List<ShellControl> controls;
+        synchronized (pinned) {
+            controls = new ArrayList<>(pinned);
+        }
+
+        for (ShellControl sc : controls) {
+            if (!sc.isRunning(false)) {
+                pinned.remove(sc);
+                continue;
+            }
+
+            if (isRecentlyAlive(sc)) {
+                continue;
+            }
+
+            // Don't interfere with anything that is currently running
+            if (!sc.getLock().tryLock()) {
+                continue;
+            }
+
+            try {
+                probe(sc);
+            } catch (Exception ex) {
+                ErrorEvent.fromThrowable(ex).omit().expected().handle();
+            } finally {
+                sc.getLock().unlock();
+            }
+        }
+    }
+
+    public record Status(Instant lastAlive, Duration latency) {}
+}
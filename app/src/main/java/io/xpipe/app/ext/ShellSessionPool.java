@@ -0,0 +1,338 @@
+package io.xpipe.app.ext;
+
+import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.issue.TrackEvent;
+import io.xpipe.app.storage.DataStorage;
+import io.xpipe.app.storage.DataStoreEntry;
+import io.xpipe.app.util.ThreadHelper;
+import io.xpipe.core.process.ShellControl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A bounded pool of additional shell connections per shell store. This allows independent operations,
+ * e.g. file listings, to run while the main shell of a store is busy with something else.
+ * Every pooled shell is a separate connection, as sub shells share the streams of their parent shell.
+ * Shells that are not leased for some time are closed automatically.
+ * Pools belong to an entry and are discarded once the entry is removed or its store is changed.
+ */
+public class ShellSessionPool {
+
+    private static final int MAX_SIZE = 3;
+    private static final Duration IDLE_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration MAX_WAIT = Duration.ofSeconds(30);
+    private static final ShellSessionPool INSTANCE = new ShellSessionPool();
+
+    private final Map<UUID, Pool> pools = new HashMap<>();
+    private Thread evictionThread;
+
+    public static ShellSessionPool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks whether the shell is the shell of its store itself. Derived shells, e.g. elevated ones, keep the store id
+     * of their parent but might run as a different user, so new connections of the store can't replace them.
+     */
+    public static boolean isStoreShell(ShellControl sc) {
+        var storeId = sc.getSourceStoreId().orElse(null);
+        if (storeId == null) {
+            return false;
+        }
+
+        return sc.getParentControl()
+                .flatMap(ShellControl::getSourceStoreId)
+                .map(id -> !id.equals(storeId))
+                .orElse(true);
+    }
+
+    /**
+     * Leases a shell for the store, waiting for one to become available if the pool is exhausted.
+     */
+    public Lease lease(DataStoreEntry entry) throws Exception {
+        return lease(entry, true).orElseThrow();
+    }
+
+    /**
+     * Leases a shell for the store if one is idle or the pool can still grow without prompting the user.
+     */
+    public Optional<Lease> tryLease(DataStoreEntry entry) throws Exception {
+        return lease(entry, false);
+    }
+
+    private Optional<Lease> lease(DataStoreEntry entry, boolean wait) throws Exception {
+        if (!(entry.getStore() instanceof ShellStore store)) {
+            return Optional.empty();
+        }
+
+        var pool = getPool(entry.getUuid(), store);
+        var waitStart = System.nanoTime();
+        var deadline = waitStart + MAX_WAIT.toNanos();
+        ShellControl control = null;
+        var dead = new ArrayList<ShellControl>();
+        var retry = false;
+        synchronized (pool) {
+            while (true) {
+                // The store was changed while we were waiting
+                if (pool.retired) {
+                    retry = true;
+                    break;
+                }
+
+                var idle = pool.idle.pollFirst();
+                if (idle != null) {
+                    if (idle.control().isRunning(true)) {
+                        control = idle.control();
+                        break;
+                    }
+
+                    pool.size--;
+                    dead.add(idle.control());
+                    continue;
+                }
+
+                // Opening a new connection might require a login, which should only happen if we have to wait anyway
+                if (pool.size < MAX_SIZE && (wait || pool.store.canStartWithoutPrompt())) {
+                    pool.size++;
+                    break;
+                }
+
+                if (!wait) {
+                    closeAll(dead);
+                    return Optional.empty();
+                }
+
+                var remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    closeAll(dead);
+                    throw ErrorEvent.expected(new TimeoutException("Timed out waiting for an available shell session"));
+                }
+
+                pool.wait(Math.max(1, remaining / 1_000_000));
+            }
+
+            if (!retry) {
+                pool.leased++;
+                pool.leases++;
+                var waited = System.nanoTime() - waitStart;
+                pool.totalWaitNanos += waited;
+                pool.maxWaitNanos = Math.max(pool.maxWaitNanos, waited);
+            }
+        }
+        closeAll(dead);
+        if (retry) {
+            return lease(entry, wait);
+        }
+
+        if (control == null) {
+            try {
+                control = pool.store.standaloneControl().start();
+            } catch (Exception ex) {
+                synchronized (pool) {
+                    pool.size--;
+                    pool.leased--;
+                    pool.notifyAll();
+                }
+                throw ex;
+            }
+        }
+
+        startEvictionIfNeeded();
+        return Optional.of(new Lease(pool, control));
+    }
+
+    private Pool getPool(UUID uuid, ShellStore store) {
+        Pool pool;
+        Pool replaced;
+        synchronized (this) {
+            replaced = pools.get(uuid);
+            if (replaced != null && replaced.store == store) {
+                return replaced;
+            }
+
+            pool = new Pool(store);
+            pools.put(uuid, pool);
+        }
+
+        if (replaced != null) {
+            retire(replaced);
+        }
+        return pool;
+    }
+
+    private void retire(Pool pool) {
+        var closed = new ArrayList<ShellControl>();
+        synchronized (pool) {
+            pool.retired = true;
+            while (!pool.idle.isEmpty()) {
+                closed.add(pool.idle.pollFirst().control());
+                pool.size--;
+            }
+            pool.notifyAll();
+        }
+        closeAll(closed);
+    }
+
+    private void release(Pool pool, ShellControl control) {
+        var running = control.isRunning(true);
+        boolean reused;
+        synchronized (pool) {
+            pool.leased--;
+            // Shells of a changed store are not reused
+            reused = running && !pool.retired;
+            if (reused) {
+                pool.idle.addFirst(new Idle(control, Instant.now()));
+            } else {
+                pool.size--;
+            }
+            pool.notifyAll();
+        }
+
+        if (!reused) {
+            closeAll(List.of(control));
+        }
+    }
+
+    public Optional<Metrics> getMetrics(UUID entry) {
+        Pool pool;
+        synchronized (this) {
+            pool = pools.get(entry);
+        }
+        if (pool == null) {
+            return Optional.empty();
+        }
+
+        synchronized (pool) {
+            return Optional.of(pool.getMetrics());
+        }
+    }
+
+    public void evictIdle() {
+        var retired = new ArrayList<Pool>();
+        List<Pool> all;
+        synchronized (this) {
+            // Pools of removed or changed entries would otherwise be kept forever
+            var storage = DataStorage.get();
+            pools.entrySet().removeIf(e -> {
+                var entry = storage != null
+                        ? storage.getStoreEntryIfPresent(e.getKey())
+                        : Optional.<DataStoreEntry>empty();
+                if (entry.isPresent() && entry.get().getStore() == e.getValue().store) {
+                    return false;
+                }
+
+                retired.add(e.getValue());
+                return true;
+            });
+            all = new ArrayList<>(pools.values());
+        }
+        retired.forEach(this::retire);
+
+        var limit = Instant.now().minus(IDLE_TIMEOUT);
+        for (Pool pool : all) {
+            var evicted = new ArrayList<ShellControl>();
+            Metrics metrics;
+            synchronized (pool) {
+                // Idle shells are ordered by their last use, so the oldest ones are at the end
+                while (!pool.idle.isEmpty() && pool.idle.peekLast().lastUsed().isBefore(limit)) {
+                    evicted.add(pool.idle.pollLast().control());
+                    pool.size--;
+                }
+                metrics = pool.getMetrics();
+            }
+
+            if (!evicted.isEmpty()) {
+                TrackEvent.withDebug("Evicted idle pooled shell sessions")
+                        .tag("evicted", evicted.size())
+                        .tag("size", metrics.size())
+                        .tag("leases", metrics.leases())
+                        .tag("maxWaitMs", metrics.maxWait().toMillis())
+                        .handle();
+                closeAll(evicted);
+            }
+        }
+    }
+
+    private synchronized void startEvictionIfNeeded() {
+        if (evictionThread != null) {
+            return;
+        }
+
+        evictionThread = ThreadHelper.createPlatformThread("shell pool eviction", true, () -> {
+            while (true) {
+                ThreadHelper.sleep(IDLE_TIMEOUT.toMillis() / 4);
+                evictIdle();
+            }
+        });
+        evictionThread.start();
+    }
+
+    private static void closeAll(List<ShellControl> controls) {
+        for (ShellControl control : controls) {
+            try {
+                control.close();
+            } catch (Exception ex) {
+                ErrorEvent.fromThrowable(ex).omit().expected().handle();
+            }
+        }
+    }
+
+    public record Metrics(int size, int leased, int idle, long leases, Duration totalWait, Duration maxWait) {}
+
+    private record Idle(ShellControl control, Instant lastUsed) {}
+
+    private static class Pool {
+
+        private final ShellStore store;
+        private final Deque<Idle> idle = new ArrayDeque<>();
+        private boolean retired;
+        private int size;
+        private int leased;
+        private long leases;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+
+        private Pool(ShellStore store) {
+            this.store = store;
+        }
+
+        private Metrics getMetrics() {
+            return new Metrics(
+                    size,
+                    leased,
+                    idle.size(),
+                    leases,
+                    Duration.ofNanos(totalWaitNanos),
+                    Duration.ofNanos(maxWaitNanos));
+        }
+    }
+
+    public class Lease implements AutoCloseable {
+
+        private final Pool pool;
+        private final ShellControl control;
+        private boolean released;
+
+        private Lease(Pool pool, ShellControl control) {
+            this.pool = pool;
+            this.control = control;
+        }
+
+        public ShellControl getControl() {
+            return control;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (released) {
+                return;
+            }
+
+            released = true;
+            release(pool, control);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package io.xpipe.app.ext;
 
 import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.storage.DataStorage;
+import io.xpipe.app.util.HostCapabilityCache;
 import io.xpipe.core.process.ShellControl;
 import io.xpipe.core.process.StubShellControl;
 import io.xpipe.core.store.*;
@@ -12,10 +14,16 @@ public interface ShellStore extends DataStore, FileSystemStore, ValidatableStore
         if (session != null) {
             session.getShellControl().refreshRunningState();
             if (!session.isRunning()) {
+                ShellSessionHealth.get().invalidate(session.getShellControl());
                 stopSessionIfNeeded();
             } else {
+                // Only check with a round trip if the session was idle for some time
+                if (ShellSessionHealth.get().isRecentlyAlive(session.getShellControl())) {
+                    return session.getShellControl();
+                }
+
                 try {
-                    session.getShellControl().command(" echo xpipetest").execute();
+                    ShellSessionHealth.get().probe(session.getShellControl());
                     return session.getShellControl();
                 } catch (Exception e) {
                     ErrorEvent.fromThrowable(e).expected().omit().handle();
@@ -24,8 +32,18 @@ public interface ShellStore extends DataStore, FileSystemStore, ValidatableStore
             }
         }
 
-        startSessionIfNeeded();
-        return new StubShellControl(getSession().getShellControl());
+        try {
+            startSessionIfNeeded();
+        } catch (Exception ex) {
+            // We can't be sure that the system is still the same one once it is reachable again
+            DataStorage.get()
+                    .getStoreEntryIfPresent(this, false)
+                    .ifPresent(e -> HostCapabilityCache.get().invalidate(e.getUuid()));
+            throw ex;
+        }
+        var sc = getSession().getShellControl();
+        ShellSessionHealth.get().markAlive(sc);
+        return new StubShellControl(sc);
     }
 
     @Override
@@ -57,6 +75,14 @@ public interface ShellStore extends DataStore, FileSystemStore, ValidatableStore
         return shellFunction().control();
     }
 
+    /**
+     * Checks whether a new connection can be opened without asking the user for anything, e.g. a password or 2FA code.
+     * Additional connections for background work are only opened if this is the case.
+     */
+    default boolean canStartWithoutPrompt() {
+        return false;
+    }
+
     default ShellControl tempControl() throws Exception {
         if (isSessionRunning()) {
             return getOrStartSession();
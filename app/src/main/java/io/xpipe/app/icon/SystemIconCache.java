@@ -2,6 +2,7 @@ package io.xpipe.app.icon;
 
 import io.xpipe.app.core.AppProperties;
 import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.util.ThreadHelper;
 
 import com.github.weisj.jsvg.SVGDocument;
 import com.github.weisj.jsvg.SVGRenderingHints;
@@ -13,11 +14,15 @@ import lombok.Getter;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.net.URL;
 import java.nio.file.*;
 import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import javax.imageio.ImageIO;
 
 public class SystemIconCache {
@@ -34,6 +39,8 @@ public class SystemIconCache {
             AppProperties.get().getDataDir().resolve("cache").resolve("icons").resolve("raster");
     private static final int[] sizes = new int[] {16, 24, 40, 80};
 
+    private record IconKey(SystemIconSource source, String name) {}
+
     @Getter
     private static boolean built = false;
 
@@ -53,37 +60,37 @@ public class SystemIconCache {
     }
 
     public static void rebuildCache(Map<SystemIconSource, SystemIconSourceData> all) {
-        try {
+        // Icons are independent of each other, so they can be rasterized in parallel
+        var threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        try (var executor = Executors.newFixedThreadPool(
+                threads, r -> ThreadHelper.createPlatformThread("icon rasterizer", true, r))) {
+            var futures = new ArrayList<Future<?>>();
             for (var e : all.entrySet()) {
                 var target = DIRECTORY.resolve(e.getKey().getId());
                 Files.createDirectories(target);
 
+                var explicitDark = e.getValue().getIcons().stream()
+                        .filter(icon -> icon.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.DARK)
+                        .map(icon -> new IconKey(icon.getSource(), icon.getName()))
+                        .collect(Collectors.toSet());
                 for (var icon : e.getValue().getIcons()) {
-                    var dark = icon.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.DARK;
-                    if (refreshChecksum(icon.getFile(), target, icon.getName(), dark)) {
-                        continue;
-                    }
-
-                    var scheme = rasterizeSizes(icon.getFile(), target, icon.getName(), dark);
-                    if (scheme == ImageColorScheme.TRANSPARENT) {
-                        var message = "Failed to rasterize icon icon " + icon.getFile().getFileName().toString() + ": Rasterized image is transparent";
-                        ErrorEvent.fromMessage(message).omit().expected().handle();
-                        continue;
-                    }
-
-                    if (scheme != ImageColorScheme.DARK || icon.getColorSchemeData() != SystemIconSourceFile.ColorSchemeData.DEFAULT) {
-                        continue;
-                    }
-
-                    var hasExplicitDark = e.getValue().getIcons().stream().anyMatch(
-                            systemIconSourceFile -> systemIconSourceFile.getSource().equals(icon.getSource()) &&
-                                    systemIconSourceFile.getName().equals(icon.getName()) &&
-                                    systemIconSourceFile.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.DARK);
-                    if (hasExplicitDark) {
-                        continue;
-                    }
-
-                    rasterizeSizesInverted(icon.getFile(), target, icon.getName(), true);
+                    var hasExplicitDark = explicitDark.contains(new IconKey(icon.getSource(), icon.getName()));
+                    futures.add(executor.submit(() -> {
+                        rasterizeIcon(icon, target, hasExplicitDark);
+                        return null;
+                    }));
+                }
+            }
+
+            for (var future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    ErrorEvent.fromThrowable(ex.getCause()).omit().handle();
+                } catch (InterruptedException ex) {
+                    ErrorEvent.fromThrowable(ex).omit().handle();
+                    executor.shutdownNow();
+                    break;
                 }
             }
         } catch (Exception e) {
@@ -91,77 +98,63 @@ public class SystemIconCache {
         }
     }
 
-    private static boolean refreshChecksum(Path source, Path dir, String name, boolean dark) throws Exception {
-        var md5Name = name + (dark ? "-dark" : "") + ".md5";
-        var bytes = Files.readAllBytes(source);
-        var md = MessageDigest.getInstance("MD5");
-        md.update(bytes);
-        var digest = md.digest();
-        var md5File = dir.resolve(md5Name);
+    private static void rasterizeIcon(SystemIconSourceFile icon, Path target, boolean hasExplicitDark)
+            throws Exception {
+        var dark = icon.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.DARK;
+        var md5File = target.resolve(icon.getName() + (dark ? "-dark" : "") + ".md5");
+        var digest = MessageDigest.getInstance("MD5").digest(Files.readAllBytes(icon.getFile()));
         if (Files.exists(md5File) && Arrays.equals(Files.readAllBytes(md5File), digest)) {
-            return true;
-        } else {
-            Files.write(md5File, digest);
-            return false;
+            return;
         }
+
+        rasterizeSizes(icon, target, dark, hasExplicitDark);
+        // Only write the checksum once the icon is done so that an interrupted rebuild picks it up again
+        Files.write(md5File, digest);
     }
 
-    private static ImageColorScheme rasterizeSizes(Path path, Path dir, String name, boolean dark) throws IOException {
+    private static void rasterizeSizes(SystemIconSourceFile icon, Path dir, boolean dark, boolean hasExplicitDark) {
+        var path = icon.getFile();
         TrackEvent.trace("Rasterizing image " + path.getFileName().toString());
         try {
-            ImageColorScheme c = null;
-            for (var size : sizes) {
-                var image = rasterize(path, size);
-                if (image == null) {
-                    continue;
-                }
-                if (c == null) {
-                    c = determineColorScheme(image);
-                    if (c == ImageColorScheme.TRANSPARENT) {
-                        return ImageColorScheme.TRANSPARENT;
-                    }
-                }
-                write(dir, name, dark, size, image);
+            // Parse the document once and render all sizes from it
+            var svgDocument = new SVGLoader().load(path.toUri().toURL());
+            if (svgDocument == null) {
+                return;
             }
-            return c;
-        } catch (Exception ex) {
-            var message = "Failed to rasterize icon icon " + path.getFileName().toString() + ": " + ex.getMessage();
-            ErrorEvent.fromThrowable(ex).description(message).omit().expected().handle();
-            return null;
-        }
-    }
 
-    private static ImageColorScheme rasterizeSizesInverted(Path path, Path dir, String name, boolean dark) throws IOException {
-        try {
-            ImageColorScheme c = null;
-            for (var size : sizes) {
-                var image = rasterize(path, size);
-                if (image == null) {
-                    continue;
-                }
+            var images = new BufferedImage[sizes.length];
+            for (int i = 0; i < sizes.length; i++) {
+                images[i] = rasterize(svgDocument, sizes[i]);
+            }
 
-                var invert = invert(image);
-                write(dir, name, dark, size, invert);
+            var scheme = determineColorScheme(images[0]);
+            if (scheme == ImageColorScheme.TRANSPARENT) {
+                var message = "Failed to rasterize icon icon " + path.getFileName().toString()
+                        + ": Rasterized image is transparent";
+                ErrorEvent.fromMessage(message).omit().expected().handle();
+                return;
             }
-            return c;
-        } catch (Exception ex) {
-            if (ex instanceof IOException) {
-                throw ex;
+
+            for (int i = 0; i < sizes.length; i++) {
+                write(dir, icon.getName(), dark, sizes[i], images[i]);
             }
 
-            ErrorEvent.fromThrowable(ex).omit().expected().handle();
-            return null;
-        }
-    }
+            if (scheme != ImageColorScheme.DARK
+                    || icon.getColorSchemeData() != SystemIconSourceFile.ColorSchemeData.DEFAULT
+                    || hasExplicitDark) {
+                return;
+            }
 
-    private static BufferedImage rasterize(Path path, int px) throws IOException {
-        SVGLoader loader = new SVGLoader();
-        URL svgUrl = path.toUri().toURL();
-        SVGDocument svgDocument = loader.load(svgUrl);
-        if (svgDocument == null) {
-            return null;
+            for (int i = 0; i < sizes.length; i++) {
+                write(dir, icon.getName(), true, sizes[i], invert(images[i]));
+            }
+        } catch (Exception ex) {
+            var message = "Failed to rasterize icon icon " + path.getFileName().toString() + ": " + ex.getMessage();
+            ErrorEvent.fromThrowable(ex).description(message).omit().expected().handle();
         }
+    }
 
+    private static BufferedImage rasterize(SVGDocument svgDocument, int px) {
         BufferedImage image = new BufferedImage(px, px, BufferedImage.TYPE_INT_ARGB);
         Graphics2D g = image.createGraphics();
         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -173,7 +166,6 @@ public class SystemIconCache {
         return image;
     }
 
-
     private static BufferedImage write(Path dir, String name, boolean dark, int px, BufferedImage image) throws IOException {
         var out = dir.resolve(name + "-" + px + (dark ? "-dark" : "") + ".png");
         ImageIO.write(image, "png", out.toFile());
@@ -181,17 +173,15 @@ public class SystemIconCache {
     }
 
     private static BufferedImage invert(BufferedImage image) {
-        var buffer = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                int  clr   = image.getRGB(x, y);
-                int  alpha   = (clr >> 24) & 0xff;
-                int  red   = (clr & 0x00ff0000) >> 16;
-                int  green = (clr & 0x0000ff00) >> 8;
-                int  blue  =  clr & 0x000000ff;
-                buffer.setRGB(x, y, new Color(255- red, 255- green, 255- blue, alpha).getRGB());
-            }
+        var w = image.getWidth();
+        var h = image.getHeight();
+        var pixels = image.getRGB(0, 0, w, h, null, 0, w);
+        for (int i = 0; i < pixels.length; i++) {
+            // Invert the color channels but keep the alpha
+            pixels[i] = (pixels[i] & 0xff000000) | (~pixels[i] & 0x00ffffff);
         }
+        var buffer = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        buffer.setRGB(0, 0, w, h, pixels, 0, w);
         return buffer;
     }
 
@@ -199,25 +189,23 @@ public class SystemIconCache {
         var transparent = true;
         var counter = 0;
         var mean = 0.0;
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                int  clr   = image.getRGB(x, y);
-                int  alpha   = (clr >> 24) & 0xff;
-                int  red   = (clr & 0x00ff0000) >> 16;
-                int  green = (clr & 0x0000ff00) >> 8;
-                int  blue  =  clr & 0x000000ff;
-
-                if (alpha > 0) {
-                    transparent = false;
-                }
-
-                if (alpha < 200) {
-                    continue;
-                }
+        var pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        for (int clr : pixels) {
+            int  alpha   = (clr >> 24) & 0xff;
+            int  red   = (clr & 0x00ff0000) >> 16;
+            int  green = (clr & 0x0000ff00) >> 8;
+            int  blue  =  clr & 0x000000ff;
+
+            if (alpha > 0) {
+                transparent = false;
+            }
 
-                mean += red + green + blue;
-                counter++;
+            if (alpha < 200) {
+                continue;
             }
+
+            mean += red + green + blue;
+            counter++;
         }
 
         if (transparent) {
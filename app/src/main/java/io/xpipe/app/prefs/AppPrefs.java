@@ -145,6 +145,8 @@ public class AppPrefs {
             mapLocal(new SimpleObjectProperty<>(), "downloadsDirectory", String.class, false);
     final BooleanProperty confirmAllDeletions =
             mapLocal(new SimpleBooleanProperty(false), "confirmAllDeletions", Boolean.class, false);
+    final Property<Integer> fileTransferSessions =
+            mapLocal(new SimpleObjectProperty<>(1), "fileTransferSessions", Integer.class, false);
     final BooleanProperty developerMode =
             mapLocal(new SimpleBooleanProperty(false), "developerMode", Boolean.class, true);
     final BooleanProperty developerDisableUpdateVersionCheck =
@@ -227,6 +229,10 @@ public class AppPrefs {
 
     private final IntegerProperty editorReloadTimeout =
             mapLocal(new SimpleIntegerProperty(1000), "editorReloadTimeout", Integer.class, false);
+    private final IntegerProperty shellSessionIdleWindow =
+            mapLocal(new SimpleIntegerProperty(10000), "shellSessionIdleWindow", Integer.class, false);
+    private final BooleanProperty watchContainerEvents =
+            mapLocal(new SimpleBooleanProperty(false), "watchContainerEvents", Boolean.class, false);
     private final BooleanProperty confirmDeletions =
             mapLocal(new SimpleBooleanProperty(true), "confirmDeletions", Boolean.class, false);
 
@@ -333,6 +339,10 @@ public class AppPrefs {
         return uiScale;
     }
 
+    public ReadOnlyProperty<Integer> fileTransferSessions() {
+        return fileTransferSessions;
+    }
+
     public ReadOnlyBooleanProperty clearTerminalOnInit() {
         return clearTerminalOnInit;
     }
@@ -409,6 +419,14 @@ public class AppPrefs {
         return editorReloadTimeout;
     }
 
+    public final ReadOnlyIntegerProperty shellSessionIdleWindow() {
+        return shellSessionIdleWindow;
+    }
+
+    public final ReadOnlyBooleanProperty watchContainerEvents() {
+        return watchContainerEvents;
+    }
+
     public ReadOnlyProperty<StartupBehaviour> startupBehaviour() {
         return startupBehaviour;
     }
@@ -1,6 +1,7 @@
 package io.xpipe.app.prefs;
 
 import io.xpipe.app.comp.Comp;
+import io.xpipe.app.comp.base.IntFieldComp;
 import io.xpipe.app.util.OptionsBuilder;
 
 public class FileBrowserCategory extends AppPrefsCategory {
@@ -24,6 +25,8 @@ public class FileBrowserCategory extends AppPrefsCategory {
                         .addToggle(prefs.confirmAllDeletions)
                         .pref(prefs.downloadsDirectory)
                         .addString(prefs.downloadsDirectory)
+                        .pref(prefs.fileTransferSessions)
+                        .addComp(new IntFieldComp(prefs.fileTransferSessions).maxWidth(100), prefs.fileTransferSessions)
                         .pref(prefs.pinLocalMachineOnStartup)
                         .addToggle(prefs.pinLocalMachineOnStartup))
                 .buildComp();
@@ -0,0 +1,428 @@
+package io.xpipe.app.storage;
+
+import io.xpipe.app.issue.ErrorEvent;
+import io.xpipe.app.issue.TrackEvent;
+import io.xpipe.core.util.JacksonMapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A storage that keeps all categories and entries in one append-only log file instead of one directory per element.
+ * Every save appends the changed elements, the latest record of an element wins.
+ * The log is compacted once it contains too many outdated records.
+ * If no log file exists yet, the data is imported from the standard directory layout.
+ * Git sync works on the directory layout, so while it is active the directory layout stays the source of truth.
+ * It is read on load, as it might have been updated by the sync, and every save also writes the directory layout.
+ */
+public class CompactStorage extends StandardStorage {
+
+    private static final int MAGIC = 0x58505654;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    // Type byte and uuid
+    private static final int RECORD_HEADER_SIZE = 1 + 16;
+
+    private static final byte CATEGORY = 1;
+    private static final byte ENTRY = 2;
+    private static final byte CATEGORY_DELETION = 3;
+    private static final byte ENTRY_DELETION = 4;
+
+    private static final long COMPACTION_MIN_SIZE = 1024 * 1024;
+    private static final int COMPACTION_RATIO = 2;
+
+    private final Map<UUID, Record> categoryRecords = new HashMap<>();
+    private final Map<UUID, Record> entryRecords = new HashMap<>();
+    private final Set<UUID> removedCategories = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> removedEntries = ConcurrentHashMap.newKeySet();
+    private ByteBuffer buffer;
+    private long fileSize;
+    private boolean imported;
+    private boolean unreadable;
+    private boolean directoryUpToDate;
+
+    CompactStorage() {}
+
+    public Path getVaultFile() {
+        return dir.resolve("vault.dat");
+    }
+
+    @Override
+    public void load() {
+        super.load();
+        // The buffer is only needed for the initial load
+        buffer = null;
+    }
+
+    @Override
+    protected List<DataStoreCategory> readCategories(AtomicReference<Exception> exception) throws IOException {
+        var sync = supportsSharing();
+        if (!Files.exists(getVaultFile()) || sync) {
+            // Import from the standard layout
+            imported = true;
+            directoryUpToDate = true;
+            var list = super.readCategories(exception);
+            // The log is rewritten completely anyway on the first save as it contains no records
+            if (!sync) {
+                list.forEach(cat -> cat.dirty = true);
+            }
+            return list;
+        }
+
+        readIndex();
+        var records = new ArrayList<>(categoryRecords.values());
+        var list = new ArrayList<DataStoreCategory>();
+        for (Record record : records) {
+            try {
+                var files = readFiles(record);
+                var dir = getCategoriesDir().resolve(record.uuid().toString());
+                DataStoreCategory.fromFiles(dir, name -> getFile(files, name)).ifPresent(list::add);
+            } catch (IOException ex) {
+                exception.set(ex);
+            } catch (Exception ex) {
+                // Data corruption and schema changes are expected
+                ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
+            }
+        }
+        return list;
+    }
+
+    @Override
+    protected List<DataStoreEntry> readEntries(AtomicReference<Exception> exception) throws IOException {
+        if (imported) {
+            var list = super.readEntries(exception);
+            if (!supportsSharing()) {
+                list.forEach(entry -> entry.dirty = true);
+            }
+            return list;
+        }
+
+        var records = new ArrayList<>(entryRecords.values());
+        return readInParallel(records, record -> {
+            var dir = getStoresDir().resolve(record.uuid().toString());
+            return readEntry(
+                    dir,
+                    () -> {
+                        var files = readFiles(record);
+                        return DataStoreEntry.fromFiles(dir, name -> getFile(files, name));
+                    },
+                    exception);
+        });
+    }
+
+    private static Optional<String> getFile(JsonNode files, String name) {
+        var node = files.get(name);
+        return node != null && node.isTextual() ? Optional.of(node.asText()) : Optional.empty();
+    }
+
+    private void readIndex() throws IOException {
+        // The file is read into the heap instead of being mapped
+        // A mapping would stay alive until it is garbage collected, which prevents truncating or replacing the file on Windows
+        try (var channel = FileChannel.open(getVaultFile(), StandardOpenOption.READ)) {
+            var size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                unreadable = true;
+                throw new IOException("Vault file " + getVaultFile() + " is too large");
+            }
+
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+        }
+
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            unreadable = true;
+            throw new IOException("Vault file " + getVaultFile() + " is not valid");
+        }
+
+        if (buffer.getInt(4) > VERSION) {
+            unreadable = true;
+            throw new IOException("Vault file " + getVaultFile() + " was created by a newer version");
+        }
+
+        int position = HEADER_SIZE;
+        while (position + 4 <= buffer.limit()) {
+            var length = buffer.getInt(position);
+            // Ignore a partially written record at the end, e.g. from a crash
+            if (length < RECORD_HEADER_SIZE || (long) position + 4 + length > buffer.limit()) {
+                TrackEvent.withWarn("Ignoring incomplete vault record")
+                        .tag("position", position)
+                        .handle();
+                break;
+            }
+
+            var type = buffer.get(position + 4);
+            var uuid = new UUID(buffer.getLong(position + 5), buffer.getLong(position + 13));
+            var record = new Record(type, uuid, position, length);
+            switch (type) {
+                case CATEGORY -> categoryRecords.put(uuid, record);
+                case ENTRY -> entryRecords.put(uuid, record);
+                case CATEGORY_DELETION -> categoryRecords.remove(uuid);
+                case ENTRY_DELETION -> entryRecords.remove(uuid);
+                default -> {}
+            }
+            position += 4 + length;
+        }
+        fileSize = position;
+    }
+
+    private JsonNode readFiles(Record record) throws IOException {
+        var payload = new byte[record.length() - RECORD_HEADER_SIZE];
+        buffer.get((int) record.offset() + 4 + RECORD_HEADER_SIZE, payload);
+        return JacksonMapper.getDefault().readTree(payload);
+    }
+
+    @Override
+    protected void removeStoreEntryInternal(DataStoreEntry e) {
+        super.removeStoreEntryInternal(e);
+        // Entries removed during loading, e.g. ones of other users, have to be kept
+        if (loaded) {
+            removedEntries.add(e.getUuid());
+        }
+    }
+
+    @Override
+    protected void removeStoreCategoryInternal(DataStoreCategory cat) {
+        super.removeStoreCategoryInternal(cat);
+        if (loaded) {
+            removedCategories.add(cat.getUuid());
+        }
+    }
+
+    @Override
+    protected void deleteLeftovers() {
+        // Removed elements are written as deletion records instead, only the synced directory layout has to be cleaned
+        if (supportsSharing()) {
+            super.deleteLeftovers();
+        }
+    }
+
+    @Override
+    protected void writeElements(AtomicReference<Exception> exception) {
+        if (!supportsSharing()) {
+            directoryUpToDate = false;
+            appendChanges(exception, StorageElement::isDirty);
+            return;
+        }
+
+        // The directory layout might be outdated if the sync was enabled after loading from the log
+        var fullExport = !directoryUpToDate;
+        if (fullExport) {
+            storeCategories.forEach(cat -> cat.dirty = true);
+            storeEntriesSet.forEach(entry -> entry.dirty = true);
+        }
+
+        // Writing the directory layout resets the dirty state, so remember what has changed
+        var changed = Stream.concat(storeCategories.stream(), storeEntriesSet.stream())
+                .filter(StorageElement::isDirty)
+                .map(StorageElement::getUuid)
+                .collect(Collectors.toSet());
+        super.writeElements(exception);
+        if (fullExport) {
+            deleteLeftovers();
+        }
+        directoryUpToDate = true;
+        appendChanges(exception, element -> changed.contains(element.getUuid()));
+    }
+
+    private void appendChanges(AtomicReference<Exception> exception, Predicate<StorageElement> changed) {
+        var file = getVaultFile();
+        // Don't overwrite a file that we can't read
+        if (unreadable) {
+            exception.set(new IOException("Vault file " + file + " is not writable as it could not be read"));
+            return;
+        }
+
+        try {
+            FileUtils.forceMkdir(dir.toFile());
+        } catch (IOException e) {
+            exception.set(e);
+            return;
+        }
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (fileSize == 0) {
+                var header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                fileSize = HEADER_SIZE;
+            } else if (channel.size() > fileSize) {
+                // Drop any partially written record
+                channel.truncate(fileSize);
+            }
+
+            for (UUID uuid : List.copyOf(removedCategories)) {
+                removedCategories.remove(uuid);
+                if (categoryRecords.remove(uuid) != null) {
+                    append(channel, CATEGORY_DELETION, uuid, new byte[0]);
+                }
+            }
+            for (UUID uuid : List.copyOf(removedEntries)) {
+                removedEntries.remove(uuid);
+                if (entryRecords.remove(uuid) != null) {
+                    append(channel, ENTRY_DELETION, uuid, new byte[0]);
+                }
+            }
+
+            for (DataStoreCategory category : storeCategories) {
+                if (!changed.test(category) && categoryRecords.containsKey(category.getUuid())) {
+                    continue;
+                }
+
+                try {
+                    var files = category.writeDataToFiles();
+                    var record = append(channel, CATEGORY, category.getUuid(), serializeFiles(files));
+                    categoryRecords.put(category.getUuid(), record);
+                } catch (IOException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    // Data corruption and schema changes are expected
+                    ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
+                }
+            }
+
+            for (DataStoreEntry entry : storeEntriesSet) {
+                if (!entry.shouldSave()) {
+                    continue;
+                }
+
+                if (!changed.test(entry) && entryRecords.containsKey(entry.getUuid())) {
+                    continue;
+                }
+
+                try {
+                    var files = entry.writeDataToFiles();
+                    var record = append(channel, ENTRY, entry.getUuid(), serializeFiles(files));
+                    entryRecords.put(entry.getUuid(), record);
+                } catch (IOException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    // Data corruption and schema changes are expected
+                    exception.set(ex);
+                    ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
+                }
+            }
+
+            channel.force(false);
+        } catch (IOException ex) {
+            exception.set(ex);
+            return;
+        }
+
+        if (shouldCompact()) {
+            try {
+                compact();
+            } catch (IOException ex) {
+                // We can continue to use the uncompacted file
+                ErrorEvent.fromThrowable(ex).omit().expected().handle();
+            }
+        }
+    }
+
+    private static byte[] serializeFiles(Map<String, String> files) throws IOException {
+        var node = JsonNodeFactory.instance.objectNode();
+        files.forEach(node::put);
+        return JacksonMapper.getDefault()
+                .writer()
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsBytes(node);
+    }
+
+    private Record append(FileChannel channel, byte type, UUID uuid, byte[] payload) throws IOException {
+        var length = RECORD_HEADER_SIZE + payload.length;
+        var b = ByteBuffer.allocate(4 + length);
+        b.putInt(length)
+                .put(type)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .put(payload)
+                .flip();
+        var offset = fileSize;
+        while (b.hasRemaining()) {
+            channel.write(b, offset + b.position());
+        }
+        fileSize += 4 + length;
+        return new Record(type, uuid, offset, length);
+    }
+
+    private long getLiveSize() {
+        return HEADER_SIZE
+                + Stream.concat(categoryRecords.values().stream(), entryRecords.values().stream())
+                        .mapToLong(record -> 4L + record.length())
+                        .sum();
+    }
+
+    private boolean shouldCompact() {
+        return fileSize > COMPACTION_MIN_SIZE && fileSize > getLiveSize() * COMPACTION_RATIO;
+    }
+
+    private void compact() throws IOException {
+        var file = getVaultFile();
+        var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        var newCategoryRecords = new HashMap<UUID, Record>();
+        var newEntryRecords = new HashMap<UUID, Record>();
+        long position = HEADER_SIZE;
+        try (var source = FileChannel.open(file, StandardOpenOption.READ);
+                var target = FileChannel.open(
+                        temp,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            var header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            target.write(header, 0);
+
+            // Records are copied as is, there is no need to serialize or encrypt anything again
+            for (var records : List.of(categoryRecords, entryRecords)) {
+                for (Record record : records.values()) {
+                    var size = 4L + record.length();
+                    var transferred = 0L;
+                    target.position(position);
+                    while (transferred < size) {
+                        transferred += source.transferTo(record.offset() + transferred, size - transferred, target);
+                    }
+                    var moved = new Record(record.type(), record.uuid(), position, record.length());
+                    (records == categoryRecords ? newCategoryRecords : newEntryRecords).put(record.uuid(), moved);
+                    position += size;
+                }
+            }
+            target.force(false);
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        TrackEvent.withDebug("Compacted vault file")
+                .tag("oldSize", fileSize)
+                .tag("newSize", position)
+                .handle();
+        categoryRecords.clear();
+        categoryRecords.putAll(newCategoryRecords);
+        entryRecords.clear();
+        entryRecords.putAll(newEntryRecords);
+        fileSize = position;
+    }
+
+    private record Record(byte type, UUID uuid, long offset, int length) {}
+}
@@ -6,6 +6,7 @@ import io.xpipe.app.issue.ErrorEvent;
 import io.xpipe.app.issue.TrackEvent;
 import io.xpipe.app.prefs.AppPrefs;
 import io.xpipe.app.util.FixedHierarchyStore;
+import io.xpipe.app.util.HostCapabilityCache;
 import io.xpipe.app.util.ThreadHelper;
 import io.xpipe.core.store.DataStore;
 import io.xpipe.core.store.FixedChildStore;
@@ -13,6 +14,7 @@ import io.xpipe.core.store.StorePath;
 
 import javafx.util.Pair;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -24,7 +26,7 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 import javax.crypto.SecretKey;
 
@@ -41,6 +43,7 @@ public abstract class DataStorage {
     public static final UUID SYNCED_IDENTITIES_CATEGORY_UUID = UUID.fromString("69aa5040-28dc-451e-b4ff-1192ce5e1e3c");
 
     private static final String PERSIST_PROP = "io.xpipe.storage.persist";
+    private static final String COMPACT_PROP = "io.xpipe.storage.compact";
 
     private static DataStorage INSTANCE;
     protected final Path dir;
@@ -57,6 +60,15 @@ public abstract class DataStorage {
     private final List<StorageListener> listeners = new CopyOnWriteArrayList<>();
 
     private final Map<DataStoreEntry, DataStoreEntry> storeEntriesInProgress = new ConcurrentHashMap<>();
+    private final Map<DataStore, DataStoreEntry> storeEntriesInProgressByStore = new IdentityHashMap<>();
+
+    // Lookup indices, these have to be kept in sync with storeEntries and storeCategories
+    private final Map<UUID, DataStoreEntry> storeEntriesById = new ConcurrentHashMap<>();
+    private final Map<String, Set<DataStoreEntry>> storeEntriesByName = new ConcurrentHashMap<>();
+    private final Map<UUID, DataStoreCategory> storeCategoriesById = new ConcurrentHashMap<>();
+    private final DataStoreEntryGraph storeEntryGraph = new DataStoreEntryGraph();
+    // Incremented whenever a store or category path might have changed
+    private final AtomicLong pathVersion = new AtomicLong();
 
     @Getter
     protected boolean loaded;
@@ -84,12 +96,18 @@ public abstract class DataStorage {
         return true;
     }
 
+    private static boolean shouldCompact() {
+        return Boolean.parseBoolean(System.getProperty(COMPACT_PROP));
+    }
+
     public static void init() {
         if (INSTANCE != null) {
             return;
         }
 
-        INSTANCE = shouldPersist() ? new StandardStorage() : new ImpersistentStorage();
+        INSTANCE = shouldPersist()
+                ? (shouldCompact() ? new CompactStorage() : new StandardStorage())
+                : new ImpersistentStorage();
         INSTANCE.load();
     }
 
@@ -152,7 +170,7 @@ public abstract class DataStorage {
         if (allConnections.isEmpty()) {
             var cat = DataStoreCategory.createNew(null, ALL_CONNECTIONS_CATEGORY_UUID, "All connections");
             cat.setDirectory(categoriesDir.resolve(ALL_CONNECTIONS_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         } else {
             allConnections.get().setParentCategory(null);
         }
@@ -161,7 +179,7 @@ public abstract class DataStorage {
         if (allScripts.isEmpty()) {
             var cat = DataStoreCategory.createNew(null, ALL_SCRIPTS_CATEGORY_UUID, "All scripts");
             cat.setDirectory(categoriesDir.resolve(ALL_SCRIPTS_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         } else {
             allScripts.get().setParentCategory(null);
         }
@@ -170,20 +188,20 @@ public abstract class DataStorage {
             var cat =
                     DataStoreCategory.createNew(ALL_SCRIPTS_CATEGORY_UUID, PREDEFINED_SCRIPTS_CATEGORY_UUID, "Samples");
             cat.setDirectory(categoriesDir.resolve(PREDEFINED_SCRIPTS_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         }
 
         if (getStoreCategoryIfPresent(CUSTOM_SCRIPTS_CATEGORY_UUID).isEmpty()) {
             var cat = DataStoreCategory.createNew(ALL_SCRIPTS_CATEGORY_UUID, CUSTOM_SCRIPTS_CATEGORY_UUID, "Custom");
             cat.setDirectory(categoriesDir.resolve(CUSTOM_SCRIPTS_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         }
 
         var allIdentities = getStoreCategoryIfPresent(ALL_IDENTITIES_CATEGORY_UUID);
         if (allIdentities.isEmpty()) {
             var cat = DataStoreCategory.createNew(null, ALL_IDENTITIES_CATEGORY_UUID, "All identities");
             cat.setDirectory(categoriesDir.resolve(ALL_IDENTITIES_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         } else {
             allIdentities.get().setParentCategory(null);
         }
@@ -193,7 +211,7 @@ public abstract class DataStorage {
             var cat =
                     DataStoreCategory.createNew(ALL_IDENTITIES_CATEGORY_UUID, LOCAL_IDENTITIES_CATEGORY_UUID, "Local");
             cat.setDirectory(categoriesDir.resolve(LOCAL_IDENTITIES_CATEGORY_UUID.toString()));
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         } else {
             localIdentities.get().setParentCategory(ALL_IDENTITIES_CATEGORY_UUID);
         }
@@ -205,14 +223,14 @@ public abstract class DataStorage {
                         ALL_IDENTITIES_CATEGORY_UUID, SYNCED_IDENTITIES_CATEGORY_UUID, "Synced");
                 cat.setDirectory(categoriesDir.resolve(SYNCED_IDENTITIES_CATEGORY_UUID.toString()));
                 cat.setSync(true);
-                storeCategories.add(cat);
+                putStoreCategory(cat);
             } else {
                 sharedIdentities.get().setParentCategory(ALL_IDENTITIES_CATEGORY_UUID);
             }
         }
 
         if (getStoreCategoryIfPresent(DEFAULT_CATEGORY_UUID).isEmpty()) {
-            storeCategories.add(new DataStoreCategory(
+            putStoreCategory(new DataStoreCategory(
                     categoriesDir.resolve(DEFAULT_CATEGORY_UUID.toString()),
                     DEFAULT_CATEGORY_UUID,
                     "Default",
@@ -260,6 +278,110 @@ public abstract class DataStorage {
         return dir.resolve("categories");
     }
 
+    protected void putStoreCategory(DataStoreCategory cat) {
+        storeCategories.add(cat);
+        storeCategoriesById.put(cat.getUuid(), cat);
+        invalidatePaths();
+    }
+
+    protected void removeStoreCategoryInternal(DataStoreCategory cat) {
+        storeCategories.remove(cat);
+        storeCategoriesById.remove(cat.getUuid(), cat);
+        invalidatePaths();
+    }
+
+    protected void putStoreEntry(DataStoreEntry e) {
+        storeEntries.put(e, e);
+        storeEntriesById.put(e.getUuid(), e);
+        if (e.getName() != null) {
+            storeEntriesByName
+                    .computeIfAbsent(getNameIndexKey(e.getName()), k -> ConcurrentHashMap.newKeySet())
+                    .add(e);
+        }
+        storeEntryGraph.setParent(e, computeDisplayParent(e));
+        // The presence of this entry might complete or break a parent chain
+        storeEntryGraph.invalidateLoops();
+        invalidatePaths();
+    }
+
+    protected void removeStoreEntryInternal(DataStoreEntry e) {
+        storeEntries.remove(e);
+        storeEntriesById.remove(e.getUuid());
+        if (e.getName() != null) {
+            removeFromNameIndex(e, e.getName());
+        }
+        storeEntryGraph.remove(e);
+        invalidatePaths();
+    }
+
+    void onStoreEntryStoreChange(DataStoreEntry e) {
+        // Only track entries that are actually part of the storage
+        if (storeEntries.get(e) != e) {
+            return;
+        }
+
+        updateStoreEntryParent(e);
+        // Local stores are not part of paths
+        invalidatePaths();
+    }
+
+    protected void updateStoreEntryParent(DataStoreEntry e) {
+        if (storeEntryGraph.setParent(e, computeDisplayParent(e))) {
+            invalidatePaths();
+            listeners.forEach(l -> l.onStoreParentChange(e));
+        }
+    }
+
+    void invalidatePaths() {
+        pathVersion.incrementAndGet();
+    }
+
+    public long getPathVersion() {
+        return pathVersion.get();
+    }
+
+    private DataStoreEntry computeDisplayParent(DataStoreEntry entry) {
+        if (entry.getValidity() == DataStoreEntry.Validity.LOAD_FAILED) {
+            return null;
+        }
+
+        try {
+            var provider = entry.getProvider();
+            return provider != null ? provider.getDisplayParent(entry) : null;
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    void onStoreEntryRename(DataStoreEntry e, String oldName) {
+        invalidatePaths();
+        if (oldName == null || !removeFromNameIndex(e, oldName) || e.getName() == null) {
+            return;
+        }
+
+        storeEntriesByName
+                .computeIfAbsent(getNameIndexKey(e.getName()), k -> ConcurrentHashMap.newKeySet())
+                .add(e);
+    }
+
+    private boolean removeFromNameIndex(DataStoreEntry e, String name) {
+        var key = getNameIndexKey(name);
+        var set = storeEntriesByName.get(key);
+        if (set == null) {
+            return false;
+        }
+
+        var removed = set.remove(e);
+        if (set.isEmpty()) {
+            storeEntriesByName.remove(key, set);
+        }
+        return removed;
+    }
+
+    private static String getNameIndexKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
     public void addListener(StorageListener l) {
         this.listeners.add(l);
     }
@@ -331,6 +453,83 @@ public abstract class DataStorage {
         storeEntries.keySet().forEach(dataStoreEntry -> {
             dataStoreEntry.refreshStore();
         });
+        // Stores might have changed their display parent
+        storeEntries.keySet().forEach(dataStoreEntry -> {
+            updateStoreEntryParent(dataStoreEntry);
+        });
+    }
+
+    protected void refreshEntriesInDependencyOrder(Collection<DataStoreEntry> entries) {
+        var ordered = new LinkedHashSet<DataStoreEntry>();
+        var included = new HashSet<>(entries);
+        for (DataStoreEntry entry : entries) {
+            addInDependencyOrder(entry, included, ordered, new HashSet<>());
+        }
+
+        ordered.forEach(dataStoreEntry -> {
+            dataStoreEntry.refreshStore();
+        });
+
+        // Entries within dependency loops might need another iteration to complete
+        var pending = ordered.stream()
+                .filter(dataStoreEntry -> dataStoreEntry.getValidity() == DataStoreEntry.Validity.INCOMPLETE)
+                .toList();
+        while (!pending.isEmpty()) {
+            pending.forEach(dataStoreEntry -> {
+                dataStoreEntry.refreshStore();
+            });
+            var next = pending.stream()
+                    .filter(dataStoreEntry -> dataStoreEntry.getValidity() == DataStoreEntry.Validity.INCOMPLETE)
+                    .toList();
+            if (next.size() == pending.size()) {
+                break;
+            }
+            pending = next;
+        }
+
+        ordered.forEach(dataStoreEntry -> {
+            updateStoreEntryParent(dataStoreEntry);
+        });
+    }
+
+    private void addInDependencyOrder(
+            DataStoreEntry entry, Set<DataStoreEntry> included, Set<DataStoreEntry> ordered, Set<DataStoreEntry> visiting) {
+        if (ordered.contains(entry) || !visiting.add(entry)) {
+            return;
+        }
+
+        var dependencies = new HashSet<UUID>();
+        if (entry.getStoreNode() != null) {
+            collectDependencies(entry.getStoreNode().getContentNode(), dependencies);
+        }
+        for (UUID dependency : dependencies) {
+            var found = storeEntriesById.get(dependency);
+            if (found != null && included.contains(found)) {
+                addInDependencyOrder(found, included, ordered, visiting);
+            }
+        }
+        ordered.add(entry);
+    }
+
+    private static void collectDependencies(JsonNode node, Set<UUID> ids) {
+        if (node == null) {
+            return;
+        }
+
+        // Entry refs are serialized as objects with a store id
+        if (node.isObject()) {
+            var id = node.get("storeId");
+            if (id != null && id.isTextual()) {
+                try {
+                    ids.add(UUID.fromString(id.asText()));
+                } catch (IllegalArgumentException ignored) {
+                }
+            }
+        }
+
+        for (JsonNode child : node) {
+            collectDependencies(child, ids);
+        }
     }
 
     public void updateEntry(DataStoreEntry entry, DataStoreEntry newEntry) {
@@ -346,6 +545,7 @@ public abstract class DataStorage {
             newEntry.setIcon(icon, true);
         }
 
+        var oldName = entry.getName();
         var oldParent = DataStorage.get().getDefaultDisplayParent(entry);
         var newParent = DataStorage.get().getDefaultDisplayParent(newEntry);
         var sameParent = Objects.equals(oldParent, newParent);
@@ -353,6 +553,10 @@ public abstract class DataStorage {
         entry.finalizeEntry();
 
         var children = getDeepStoreChildren(entry);
+        // The connection details might have changed, e.g. the user, so the known system facts can't be trusted
+        HostCapabilityCache.get().invalidate(entry.getUuid());
+        children.forEach(c -> HostCapabilityCache.get().invalidate(c.getUuid()));
+
         if (!sameParent) {
             var toRemove = Stream.concat(Stream.of(entry), children.stream()).toArray(DataStoreEntry[]::new);
             listeners.forEach(storageListener -> storageListener.onStoreRemove(toRemove));
@@ -368,14 +572,14 @@ public abstract class DataStorage {
         }
 
         entry.applyChanges(newEntry);
+        if (!Objects.equals(oldName, entry.getName())) {
+            onStoreEntryRename(entry, oldName);
+        }
+        updateStoreEntryParent(entry);
         entry.initializeEntry();
 
         if (!sameParent) {
-            if (oldParent.isPresent()) {
-                oldParent.get().setChildrenCache(null);
-            }
             if (newParent.isPresent()) {
-                newParent.get().setChildrenCache(null);
                 newParent.get().setExpanded(true);
             }
             var toAdd = Stream.concat(Stream.of(entry), children.stream()).toArray(DataStoreEntry[]::new);
@@ -614,15 +818,13 @@ public abstract class DataStorage {
 
         for (var td : toDelete) {
             td.finalizeEntry();
-            this.storeEntriesSet.remove(td);
+            removeStoreEntryInternal(td);
             synchronized (identityStoreEntryMapCache) {
                 identityStoreEntryMapCache.remove(td.getStore());
             }
             synchronized (storeEntryMapCache) {
                 storeEntryMapCache.remove(td.getStore());
             }
-            var parent = getDefaultDisplayParent(td);
-            parent.ifPresent(p -> p.setChildrenCache(null));
         }
 
         this.listeners.forEach(l -> l.onStoreRemove(toDelete.toArray(DataStoreEntry[]::new)));
@@ -632,7 +834,7 @@ public abstract class DataStorage {
 
     public void addStoreCategory(@NonNull DataStoreCategory cat) {
         cat.setDirectory(getCategoriesDir().resolve(cat.getUuid().toString()));
-        this.storeCategories.add(cat);
+        putStoreCategory(cat);
         saveAsync();
 
         this.listeners.forEach(l -> l.onCategoryAdd(cat));
@@ -640,10 +842,18 @@ public abstract class DataStorage {
 
     public void addStoreEntryInProgress(@NonNull DataStoreEntry e) {
         this.storeEntriesInProgress.put(e, e);
+        if (e.getStore() != null) {
+            synchronized (storeEntriesInProgressByStore) {
+                storeEntriesInProgressByStore.put(e.getStore(), e);
+            }
+        }
     }
 
     public void removeStoreEntryInProgress(@NonNull DataStoreEntry e) {
         this.storeEntriesInProgress.remove(e);
+        synchronized (storeEntriesInProgressByStore) {
+            storeEntriesInProgressByStore.values().removeIf(other -> other == e);
+        }
     }
 
     public DataStoreEntry addStoreEntryIfNotPresent(@NonNull DataStoreEntry e) {
@@ -652,7 +862,7 @@ public abstract class DataStorage {
             return found;
         }
 
-        var byId = getStoreEntryIfPresent(e.getUuid()).orElse(null);
+        var byId = storeEntriesById.get(e.getUuid());
         if (byId != null) {
             return byId;
         }
@@ -673,15 +883,13 @@ public abstract class DataStorage {
         }
 
         e.setDirectory(getStoresDir().resolve(e.getUuid().toString()));
-        this.storeEntries.put(e, e);
-        displayParent.ifPresent(p -> {
-            p.setChildrenCache(null);
-        });
+        putStoreEntry(e);
         saveAsync();
 
         this.listeners.forEach(l -> l.onStoreAdd(e));
         e.initializeEntry();
         e.refreshStore();
+        updateStoreEntryParent(e);
         return e;
     }
 
@@ -712,13 +920,11 @@ public abstract class DataStorage {
             }
 
             e.setDirectory(getStoresDir().resolve(e.getUuid().toString()));
-            this.storeEntries.put(e, e);
-            displayParent.ifPresent(p -> {
-                p.setChildrenCache(null);
-            });
+            putStoreEntry(e);
         }
         for (DataStoreEntry e : toAdd) {
             e.refreshStore();
+            updateStoreEntryParent(e);
         }
         this.listeners.forEach(l -> l.onStoreAdd(toAdd.toArray(DataStoreEntry[]::new)));
         for (DataStoreEntry e : toAdd) {
@@ -748,14 +954,13 @@ public abstract class DataStorage {
 
     public void deleteStoreEntry(@NonNull DataStoreEntry store) {
         store.finalizeEntry();
-        this.storeEntries.remove(store);
+        removeStoreEntryInternal(store);
         synchronized (identityStoreEntryMapCache) {
             identityStoreEntryMapCache.remove(store.getStore());
         }
         synchronized (storeEntryMapCache) {
             storeEntryMapCache.remove(store.getStore());
         }
-        getDefaultDisplayParent(store).ifPresent(p -> p.setChildrenCache(null));
         this.listeners.forEach(l -> l.onStoreRemove(store));
         refreshEntries();
         saveAsync();
@@ -788,7 +993,7 @@ public abstract class DataStorage {
             }
         });
 
-        storeCategories.remove(cat);
+        removeStoreCategoryInternal(cat);
         saveAsync();
         this.listeners.forEach(l -> l.onCategoryRemove(cat));
     }
@@ -828,18 +1033,7 @@ public abstract class DataStorage {
     }
 
     private boolean isParentLoop(DataStoreEntry entry) {
-        var es = new HashSet<DataStoreEntry>();
-
-        DataStoreEntry current = entry;
-        while ((current = getDefaultDisplayParent(current).orElse(null)) != null) {
-            if (es.contains(current)) {
-                return true;
-            }
-
-            es.add(current);
-        }
-
-        return false;
+        return storeEntryGraph.isParentLoop(entry, e -> storeEntries.containsKey(e));
     }
 
     public DataColor getEffectiveColor(DataStoreEntry entry) {
@@ -928,27 +1122,15 @@ public abstract class DataStorage {
             return Set.of();
         }
 
-        if (entry.getChildrenCache() != null) {
-            return entry.getChildrenCache();
+        if (!storeEntries.containsKey(entry)) {
+            return Set.of();
         }
 
-        var entries = getStoreEntries();
-        if (!entries.contains(entry)) {
+        if (isParentLoop(entry)) {
             return Set.of();
         }
 
-        var children = entries.stream()
-                .filter(other -> {
-                    if (other.getValidity() == DataStoreEntry.Validity.LOAD_FAILED) {
-                        return false;
-                    }
-
-                    var parent = getDefaultDisplayParent(other);
-                    return parent.isPresent() && parent.get().equals(entry) && !isParentLoop(entry);
-                })
-                .collect(Collectors.toSet());
-        entry.setChildrenCache(children);
-        return children;
+        return storeEntryGraph.getChildren(entry);
     }
 
     public List<DataStoreCategory> getCategoryParentHierarchy(DataStoreCategory cat) {
@@ -997,6 +1179,14 @@ public abstract class DataStorage {
     }
 
     public Optional<DataStoreEntry> getStoreEntryInProgressIfPresent(@NonNull DataStore store) {
+        synchronized (storeEntriesInProgressByStore) {
+            var found = storeEntriesInProgressByStore.get(store);
+            if (found != null && found.getStore() == store) {
+                return Optional.of(found);
+            }
+        }
+
+        // The store of an entry in progress might have been replaced in the meantime
         return storeEntriesInProgress.keySet().stream()
                 .filter(n -> n.getStore() == store)
                 .findFirst();
@@ -1058,15 +1248,16 @@ public abstract class DataStorage {
             return Optional.empty();
         }
 
-        return storeCategories.stream()
-                .filter(n -> {
-                    return Objects.equals(n.getUuid(), uuid);
-                })
-                .findFirst();
+        return Optional.ofNullable(storeCategoriesById.get(uuid));
     }
 
     public Optional<DataStoreEntry> getStoreEntryIfPresent(@NonNull String name) {
-        return storeEntriesSet.stream()
+        var set = storeEntriesByName.get(getNameIndexKey(name));
+        if (set == null) {
+            return Optional.empty();
+        }
+
+        return set.stream()
                 .filter(n -> n.getName().equalsIgnoreCase(name))
                 .findFirst();
     }
@@ -1084,7 +1275,11 @@ public abstract class DataStorage {
     }
 
     public Optional<DataStoreEntry> getStoreEntryIfPresent(UUID id) {
-        return storeEntriesSet.stream().filter(e -> e.getUuid().equals(id)).findAny();
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(storeEntriesById.get(id));
     }
 
     public Set<DataStoreEntry> getStoreEntries() {
@@ -1,14 +1,23 @@
 package io.xpipe.app.storage;
 
-import com.sun.net.httpserver.HttpExchange;
-import io.xpipe.beacon.api.ConnectionQueryExchange;
-
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.regex.Pattern;
 
 public class DataStorageQuery {
 
+    private static final int PATTERN_CACHE_SIZE = 256;
+    private static final String SPECIAL_CHARS = "*?[]{},!#\\";
+
+    private static final Map<String, Pattern> PATTERN_CACHE =
+            Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+                    return size() > PATTERN_CACHE_SIZE;
+                }
+            });
+
+    private static volatile Index index;
+
     public static List<DataStoreEntry> queryUserInput(String connection) {
         var found = query("**", "**" + connection + "*", "*");
         if (found.size() > 1) {
@@ -19,49 +28,132 @@ public class DataStorageQuery {
         }
         return found;
     }
-    
+
     public static List<DataStoreEntry> query(String categoryFilter, String connectionFilter, String typeFilter) {
-        if (DataStorage.get() == null) {
+        var storage = DataStorage.get();
+        if (storage == null) {
             return List.of();
         }
 
-        var catMatcher = Pattern.compile(
-                toRegex("all connections/" + categoryFilter.toLowerCase()));
-        var conMatcher = Pattern.compile(toRegex(connectionFilter.toLowerCase()));
-        var typeMatcher = Pattern.compile(toRegex(typeFilter.toLowerCase()));
+        var catMatcher = getPattern("all connections/" + categoryFilter.toLowerCase());
+        var conFilter = connectionFilter.toLowerCase();
+        var conMatcher = getPattern(conFilter);
+        var typeMatcher = getPattern(typeFilter.toLowerCase());
 
         List<DataStoreEntry> found = new ArrayList<>();
-        for (DataStoreEntry storeEntry : DataStorage.get().getStoreEntries()) {
-            if (!storeEntry.getValidity().isUsable()) {
+        for (IndexedEntry indexed : getCandidates(getIndex(storage), conFilter)) {
+            var storeEntry = indexed.entry();
+            if (!storeEntry.getValidity().isUsable() || indexed.type() == null) {
                 continue;
             }
 
-            var name = DataStorage.get().getStorePath(storeEntry).toString();
-            if (!conMatcher.matcher(name).matches()) {
+            if (!conMatcher.matcher(indexed.path()).matches()) {
                 continue;
             }
 
-            var cat = DataStorage.get()
-                    .getStoreCategoryIfPresent(storeEntry.getCategoryUuid())
-                    .orElse(null);
-            if (cat == null) {
+            if (!catMatcher.matcher(indexed.categoryPath()).matches()) {
                 continue;
             }
 
-            var c = DataStorage.get().getStorePath(cat).toString();
-            if (!catMatcher.matcher(c).matches()) {
+            if (!typeMatcher.matcher(indexed.type()).matches()) {
                 continue;
             }
 
-            if (!typeMatcher
-                    .matcher(storeEntry.getProvider().getId().toLowerCase())
-                    .matches()) {
+            found.add(storeEntry);
+        }
+        return found;
+    }
+
+    private static Pattern getPattern(String glob) {
+        var cached = PATTERN_CACHE.get(glob);
+        if (cached != null) {
+            return cached;
+        }
+
+        var pattern = Pattern.compile(toRegex(glob));
+        PATTERN_CACHE.put(glob, pattern);
+        return pattern;
+    }
+
+    private static Index getIndex(DataStorage storage) {
+        var current = index;
+        // Read the version before building so that concurrent changes result in a rebuild next time
+        var version = storage.getPathVersion();
+        if (current != null && current.storage() == storage && current.version() == version) {
+            return current;
+        }
+
+        var built = buildIndex(storage, version);
+        index = built;
+        return built;
+    }
+
+    private static Index buildIndex(DataStorage storage, long version) {
+        var categoryPaths = new HashMap<DataStoreCategory, String>();
+        var entries = new ArrayList<IndexedEntry>();
+        var byPath = new TreeMap<String, List<IndexedEntry>>();
+        var byName = new TreeMap<String, List<IndexedEntry>>();
+        for (DataStoreEntry storeEntry : storage.getStoreEntries()) {
+            var cat = storage.getStoreCategoryIfPresent(storeEntry.getCategoryUuid())
+                    .orElse(null);
+            if (cat == null) {
                 continue;
             }
 
-            found.add(storeEntry);
+            var categoryPath = categoryPaths.computeIfAbsent(
+                    cat, c -> storage.getStorePath(c).toString());
+            var storePath = storage.getStorePath(storeEntry);
+            var provider = storeEntry.getProvider();
+            var type = provider != null ? provider.getId().toLowerCase() : null;
+            var indexed = new IndexedEntry(storeEntry, storePath.toString(), categoryPath, type);
+            entries.add(indexed);
+            byPath.computeIfAbsent(indexed.path(), k -> new ArrayList<>()).add(indexed);
+            byName.computeIfAbsent(storePath.getNames().getLast().toLowerCase(), k -> new ArrayList<>())
+                    .add(indexed);
         }
-        return found;
+        return new Index(storage, version, entries, byPath, byName);
+    }
+
+    private static Collection<IndexedEntry> getCandidates(Index index, String filter) {
+        // A literal prefix of the whole filter has to be a prefix of the path
+        var prefix = getLiteralPrefix(filter);
+        if (!prefix.isEmpty()) {
+            return flatten(index.byPath(), prefix);
+        }
+
+        // Filters like **/prefix* only match entries with a name that starts with the prefix
+        var lastSeparator = filter.lastIndexOf('/');
+        if (lastSeparator != -1) {
+            var before = filter.substring(0, lastSeparator);
+            var last = filter.substring(lastSeparator + 1);
+            var namePrefix = getLiteralPrefix(last);
+            var onlyWildcards = last.chars()
+                    .noneMatch(c -> c != '*' && SPECIAL_CHARS.indexOf(c) != -1);
+            if (!namePrefix.isEmpty()
+                    && onlyWildcards
+                    && !last.contains("**")
+                    && before.indexOf('[') == -1
+                    && before.indexOf('{') == -1) {
+                return flatten(index.byName(), namePrefix);
+            }
+        }
+
+        return index.entries();
+    }
+
+    private static String getLiteralPrefix(String glob) {
+        for (int i = 0; i < glob.length(); i++) {
+            if (SPECIAL_CHARS.indexOf(glob.charAt(i)) != -1) {
+                return glob.substring(0, i);
+            }
+        }
+        return glob;
+    }
+
+    private static List<IndexedEntry> flatten(NavigableMap<String, List<IndexedEntry>> map, String prefix) {
+        var list = new ArrayList<IndexedEntry>();
+        map.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().forEach(list::addAll);
+        return list;
     }
 
     private static String toRegex(String pattern) {
@@ -149,4 +241,13 @@ public class DataStorageQuery {
         }
         return sb.toString();
     }
+
+    private record IndexedEntry(DataStoreEntry entry, String path, String categoryPath, String type) {}
+
+    private record Index(
+            DataStorage storage,
+            long version,
+            List<IndexedEntry> entries,
+            NavigableMap<String, List<IndexedEntry>> byPath,
+            NavigableMap<String, List<IndexedEntry>> byName) {}
 }
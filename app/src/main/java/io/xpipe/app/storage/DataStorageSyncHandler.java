@@ -31,6 +31,14 @@ public interface DataStorageSyncHandler {
 
     void handleCategory(DataStoreCategory category, boolean exists, boolean dirty);
 
+    default void handleEntries(List<ElementChange<DataStoreEntry>> changes) {
+        changes.forEach(change -> handleEntry(change.element(), change.exists(), change.dirty()));
+    }
+
+    default void handleCategories(List<ElementChange<DataStoreCategory>> changes) {
+        changes.forEach(change -> handleCategory(change.element(), change.exists(), change.dirty()));
+    }
+
     void handleDeletion(Path target, String name);
 
     Path getDirectory();
@@ -38,4 +46,6 @@ public interface DataStorageSyncHandler {
     List<Path> getSavedDataFiles();
 
     Path addDataFile(Path file, Path target, boolean perUser);
+
+    record ElementChange<T extends StorageElement>(T element, boolean exists, boolean dirty) {}
 }
@@ -1,6 +1,7 @@
 package io.xpipe.app.storage;
 
 import io.xpipe.app.comp.store.StoreSortMode;
+import io.xpipe.core.util.FailableFunction;
 import io.xpipe.core.util.JacksonMapper;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -17,6 +18,9 @@ import org.apache.commons.io.FileUtils;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -82,17 +86,26 @@ public class DataStoreCategory extends StorageElement {
     }
 
     public static Optional<DataStoreCategory> fromDirectory(Path dir) throws Exception {
+        return fromFiles(dir, name -> {
+            var file = dir.resolve(name);
+            return Files.exists(file) ? Optional.of(Files.readString(file)) : Optional.empty();
+        });
+    }
+
+    public static Optional<DataStoreCategory> fromFiles(
+            Path dir, FailableFunction<String, Optional<String>, Exception> files) throws Exception {
         ObjectMapper mapper = JacksonMapper.getDefault();
 
-        var entryFile = dir.resolve("category.json");
-        var stateFile = dir.resolve("state.json");
-        if (!Files.exists(entryFile)) {
+        var entryFile = files.apply("category.json");
+        var stateFile = files.apply("state.json");
+        if (entryFile.isEmpty()) {
             return Optional.empty();
         }
 
-        var stateJson =
-                Files.exists(stateFile) ? mapper.readTree(stateFile.toFile()) : JsonNodeFactory.instance.objectNode();
-        var json = mapper.readTree(entryFile.toFile());
+        var stateJson = stateFile.isPresent()
+                ? mapper.readTree(stateFile.get())
+                : JsonNodeFactory.instance.objectNode();
+        var json = mapper.readTree(entryFile.get());
 
         var uuid = UUID.fromString(json.required("uuid").textValue());
         var parentUuid = Optional.ofNullable(json.get("parentUuid"))
@@ -150,9 +163,26 @@ public class DataStoreCategory extends StorageElement {
 
     public void setParentCategory(UUID parentCategory) {
         this.parentCategory = parentCategory;
+        invalidatePaths();
         notifyUpdate(false, true);
     }
 
+    @Override
+    public void setName(String name) {
+        var changed = !Objects.equals(this.name, name);
+        super.setName(name);
+        if (changed) {
+            invalidatePaths();
+        }
+    }
+
+    private void invalidatePaths() {
+        var storage = DataStorage.get();
+        if (storage != null) {
+            storage.invalidatePaths();
+        }
+    }
+
     public boolean canShare() {
         if (parentCategory == null) {
             return false;
@@ -192,6 +222,19 @@ public class DataStoreCategory extends StorageElement {
         // the dirty bit can be set to true again
         dirty = false;
 
+        var files = createFiles();
+        FileUtils.forceMkdir(directory.toFile());
+        for (var file : files.entrySet()) {
+            writeFileIfChanged(directory.resolve(file.getKey()), file.getValue());
+        }
+    }
+
+    public Map<String, String> writeDataToFiles() throws Exception {
+        dirty = false;
+        return createFiles();
+    }
+
+    private Map<String, String> createFiles() throws JsonProcessingException {
         ObjectMapper mapper = JacksonMapper.getDefault();
         ObjectNode obj = JsonNodeFactory.instance.objectNode();
         ObjectNode stateObj = JsonNodeFactory.instance.objectNode();
@@ -205,10 +248,9 @@ public class DataStoreCategory extends StorageElement {
         stateObj.put("expanded", expanded);
         obj.put("parentUuid", parentCategory != null ? parentCategory.toString() : null);
 
-        var entryString = mapper.writeValueAsString(obj);
-        var stateString = mapper.writeValueAsString(stateObj);
-        FileUtils.forceMkdir(directory.toFile());
-        Files.writeString(directory.resolve("category.json"), entryString);
-        Files.writeString(directory.resolve("state.json"), stateString);
+        var files = new LinkedHashMap<String, String>();
+        files.put("category.json", mapper.writeValueAsString(obj));
+        files.put("state.json", mapper.writeValueAsString(stateObj));
+        return files;
     }
 }
@@ -6,6 +6,7 @@ import io.xpipe.app.ext.UserScopeStore;
 import io.xpipe.app.issue.ErrorEvent;
 import io.xpipe.app.util.ThreadHelper;
 import io.xpipe.core.store.*;
+import io.xpipe.core.util.FailableFunction;
 import io.xpipe.core.util.JacksonMapper;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -59,10 +60,6 @@ public class DataStoreEntry extends StorageElement {
     @NonFinal
     JsonNode storePersistentStateNode;
 
-    @NonFinal
-    @Setter
-    Set<DataStoreEntry> childrenCache = null;
-
     @NonFinal
     String notes;
 
@@ -189,23 +186,31 @@ public class DataStoreEntry extends StorageElement {
     }
 
     public static Optional<DataStoreEntry> fromDirectory(Path dir) throws Exception {
+        return fromFiles(dir, name -> {
+            var file = dir.resolve(name);
+            return Files.exists(file) ? Optional.of(Files.readString(file)) : Optional.empty();
+        });
+    }
+
+    public static Optional<DataStoreEntry> fromFiles(
+            Path dir, FailableFunction<String, Optional<String>, Exception> files) throws Exception {
         ObjectMapper mapper = JacksonMapper.getDefault();
 
-        var entryFile = dir.resolve("entry.json");
-        var storeFile = dir.resolve("store.json");
-        var stateFile = dir.resolve("state.json");
-        var normalNotesFile = dir.resolve("notes.md");
-        var encryptedNotesFile = dir.resolve("notes.json");
-        if (!Files.exists(entryFile) || !Files.exists(storeFile)) {
+        var entryFile = files.apply("entry.json");
+        var storeFile = files.apply("store.json");
+        var stateFile = files.apply("state.json");
+        var normalNotesFile = files.apply("notes.md");
+        var encryptedNotesFile = files.apply("notes.json");
+        if (entryFile.isEmpty() || storeFile.isEmpty()) {
             return Optional.empty();
         }
 
-        if (!Files.exists(stateFile)) {
+        if (stateFile.isEmpty()) {
             stateFile = entryFile;
         }
 
-        var json = mapper.readTree(entryFile.toFile());
-        var stateJson = mapper.readTree(stateFile.toFile());
+        var json = mapper.readTree(entryFile.get());
+        var stateJson = mapper.readTree(stateFile.get());
         var uuid = UUID.fromString(json.required("uuid").textValue());
         var categoryUuid = Optional.ofNullable(json.get("categoryUuid"))
                 .map(jsonNode -> UUID.fromString(jsonNode.textValue()))
@@ -273,11 +278,11 @@ public class DataStoreEntry extends StorageElement {
         }
 
         String notes = null;
-        if (Files.exists(normalNotesFile)) {
-            notes = Files.readString(normalNotesFile);
+        if (normalNotesFile.isPresent()) {
+            notes = normalNotesFile.get();
         }
-        if (Files.exists(encryptedNotesFile)) {
-            var node = DataStorageNode.readPossiblyEncryptedNode(mapper.readTree(encryptedNotesFile.toFile()));
+        if (encryptedNotesFile.isPresent()) {
+            var node = DataStorageNode.readPossiblyEncryptedNode(mapper.readTree(encryptedNotesFile.get()));
             var mdNode = node.getContentNode().get("markdown");
             notes = mdNode != null ? mdNode.asText() : null;
         }
@@ -285,7 +290,7 @@ public class DataStoreEntry extends StorageElement {
             notes = null;
         }
 
-        var fileNode = mapper.readTree(storeFile.toFile());
+        var fileNode = mapper.readTree(storeFile.get());
         var node = DataStorageNode.readPossiblyEncryptedNode(fileNode);
         var store = node.parseStore();
         return Optional.of(new DataStoreEntry(
@@ -308,6 +313,16 @@ public class DataStoreEntry extends StorageElement {
                 icon));
     }
 
+    @Override
+    public void setName(String name) {
+        var oldName = this.name;
+        super.setName(name);
+        var storage = DataStorage.get();
+        if (storage != null && !Objects.equals(oldName, this.name)) {
+            storage.onStoreEntryRename(this, oldName);
+        }
+    }
+
     public void setExplicitOrder(Order uuid) {
         var changed = !Objects.equals(explicitOrder, uuid);
         this.explicitOrder = uuid;
@@ -420,6 +435,10 @@ public class DataStoreEntry extends StorageElement {
         var changed = !Objects.equals(this.categoryUuid, categoryUuid);
         this.categoryUuid = categoryUuid;
         if (changed) {
+            var storage = DataStorage.get();
+            if (storage != null) {
+                storage.invalidatePaths();
+            }
             notifyUpdate(false, true);
         }
     }
@@ -443,7 +462,55 @@ public class DataStoreEntry extends StorageElement {
         dirty = false;
 
         ObjectMapper mapper = JacksonMapper.getDefault();
+        var entryString = mapper.writeValueAsString(createEntryNode(mapper));
+        var stateString = mapper.writeValueAsString(createStateNode(mapper));
+        // Encryption is not deterministic, so compare the plain content to check whether the store has changed
+        var storeSource = storeNode.isEncrypted() + ":" + storeNode.isPerUser() + ":"
+                + mapper.writeValueAsString(storeNode.getContentNode());
+
+        FileUtils.forceMkdir(directory.toFile());
+        writeFileIfChanged(directory.resolve("state.json"), stateString);
+        writeFileIfChanged(directory.resolve("entry.json"), entryString);
+        writeFileIfChanged(directory.resolve("store.json"), storeSource, () -> {
+            return mapper.writeValueAsString(DataStorageNode.encryptNodeIfNeeded(storeNode));
+        });
+
+        var encryptNotes = storeNode.isEncrypted();
+        var normalNotesFile = directory.resolve("notes.md");
+        var encryptedNotesFile = directory.resolve("notes.json");
+        if (notes == null || encryptNotes) {
+            deleteFileIfExists(normalNotesFile);
+        }
+        if (notes == null || !encryptNotes) {
+            deleteFileIfExists(encryptedNotesFile);
+        }
+        if (notes != null && encryptNotes) {
+            var notesSource = storeNode.isPerUser() + ":" + notes;
+            writeFileIfChanged(encryptedNotesFile, notesSource, () -> createEncryptedNotes(mapper));
+        } else if (notes != null) {
+            writeFileIfChanged(normalNotesFile, notes);
+        }
+        lastWrittenNotes = notes;
+    }
+
+    public Map<String, String> writeDataToFiles() throws Exception {
+        dirty = false;
+
+        ObjectMapper mapper = JacksonMapper.getDefault();
+        var files = new LinkedHashMap<String, String>();
+        files.put("entry.json", mapper.writeValueAsString(createEntryNode(mapper)));
+        files.put("state.json", mapper.writeValueAsString(createStateNode(mapper)));
+        files.put("store.json", mapper.writeValueAsString(DataStorageNode.encryptNodeIfNeeded(storeNode)));
+        if (notes != null && storeNode.isEncrypted()) {
+            files.put("notes.json", createEncryptedNotes(mapper));
+        } else if (notes != null) {
+            files.put("notes.md", notes);
+        }
+        lastWrittenNotes = notes;
+        return files;
+    }
 
+    private ObjectNode createEntryNode(ObjectMapper mapper) {
         ObjectNode obj = JsonNodeFactory.instance.objectNode();
         obj.put("uuid", uuid.toString());
         obj.put("name", name);
@@ -451,43 +518,25 @@ public class DataStoreEntry extends StorageElement {
         obj.set("color", mapper.valueToTree(color));
         obj.set("icon", mapper.valueToTree(icon));
         obj.set("configuration", mapper.valueToTree(configuration));
+        return obj;
+    }
 
+    private ObjectNode createStateNode(ObjectMapper mapper) {
         ObjectNode stateObj = JsonNodeFactory.instance.objectNode();
         stateObj.put("lastUsed", lastUsed.toString());
         stateObj.put("lastModified", lastModified.toString());
         stateObj.set("persistentState", storePersistentStateNode);
         stateObj.put("expanded", expanded);
         stateObj.set("order", mapper.valueToTree(explicitOrder));
+        return stateObj;
+    }
 
-        var entryString = mapper.writeValueAsString(obj);
-        var stateString = mapper.writeValueAsString(stateObj);
-        var storeString = mapper.writeValueAsString(DataStorageNode.encryptNodeIfNeeded(storeNode));
-
-        FileUtils.forceMkdir(directory.toFile());
-        Files.writeString(directory.resolve("state.json"), stateString);
-        Files.writeString(directory.resolve("entry.json"), entryString);
-        Files.writeString(directory.resolve("store.json"), storeString);
-
-        var encryptNotes = storeNode.isEncrypted();
-        var normalNotesFile = directory.resolve("notes.md");
-        var encryptedNotesFile = directory.resolve("notes.json");
-        if (Files.exists(normalNotesFile) && (notes == null || encryptNotes)) {
-            Files.delete(normalNotesFile);
-        }
-        if (Files.exists(encryptedNotesFile) && (notes == null || !encryptNotes)) {
-            Files.delete(encryptedNotesFile);
-        }
-        if (notes != null && encryptNotes) {
-            var notesNode = JsonNodeFactory.instance.objectNode();
-            notesNode.put("markdown", notes);
-            var storageNode = DataStorageNode.encryptNodeIfNeeded(new DataStorageNode(
-                    notesNode, storeNode.isPerUser(), storeNode.isAvailableForUser(), storeNode.isEncrypted()));
-            var string = mapper.writeValueAsString(storageNode);
-            Files.writeString(encryptedNotesFile, string);
-        } else if (notes != null) {
-            Files.writeString(normalNotesFile, notes);
-        }
-        lastWrittenNotes = notes;
+    private String createEncryptedNotes(ObjectMapper mapper) throws JsonProcessingException {
+        var notesNode = JsonNodeFactory.instance.objectNode();
+        notesNode.put("markdown", notes);
+        var storageNode = DataStorageNode.encryptNodeIfNeeded(new DataStorageNode(
+                notesNode, storeNode.isPerUser(), storeNode.isAvailableForUser(), storeNode.isEncrypted()));
+        return mapper.writeValueAsString(storageNode);
     }
 
     public void setNotes(String newNotes) {
@@ -508,7 +557,6 @@ public class DataStoreEntry extends StorageElement {
         store = e.store;
         validity = e.validity;
         provider = e.provider;
-        childrenCache = null;
         validity = store == null ? Validity.LOAD_FAILED : store.isComplete() ? Validity.COMPLETE : Validity.INCOMPLETE;
         storePersistentState = e.storePersistentState;
         storePersistentStateNode = e.storePersistentStateNode;
@@ -532,12 +580,17 @@ public class DataStoreEntry extends StorageElement {
         if (updateTime) {
             lastModified = Instant.now();
         }
-        childrenCache = null;
         dirty = true;
+        var storage = DataStorage.get();
+        if (storage != null) {
+            storage.onStoreEntryStoreChange(this);
+        }
     }
 
     public void reassignStoreNode() {
         this.storeNode = DataStorageNode.ofNewStore(store);
+        // Force a rewrite, e.g. for a re-encryption with a new key
+        clearWrittenContentHashes();
         dirty = true;
     }
 
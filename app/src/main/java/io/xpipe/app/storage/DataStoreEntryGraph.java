@@ -0,0 +1,97 @@
+package io.xpipe.app.storage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Adjacency graph of the display parents of all store entries.
+ * It is updated incrementally whenever an entry is added, removed, or its parent changes.
+ * Parents are tracked by identity of their entry, so children of an entry that is not present (yet) are
+ * automatically attached once the parent is added.
+ */
+class DataStoreEntryGraph {
+
+    private final Map<DataStoreEntry, DataStoreEntry> parents = new HashMap<>();
+    private final Map<DataStoreEntry, Set<DataStoreEntry>> children = new ConcurrentHashMap<>();
+    private final Map<DataStoreEntry, Boolean> loopCache = new ConcurrentHashMap<>();
+
+    synchronized boolean setParent(DataStoreEntry child, DataStoreEntry parent) {
+        var old = parents.get(child);
+        if (Objects.equals(old, parent)) {
+            return false;
+        }
+
+        if (old != null) {
+            var oldChildren = children.get(old);
+            if (oldChildren != null) {
+                oldChildren.remove(child);
+            }
+        }
+
+        if (parent != null) {
+            parents.put(child, parent);
+            children.computeIfAbsent(parent, k -> ConcurrentHashMap.newKeySet()).add(child);
+        } else {
+            parents.remove(child);
+        }
+
+        loopCache.clear();
+        return true;
+    }
+
+    synchronized void remove(DataStoreEntry entry) {
+        setParent(entry, null);
+        var remaining = children.get(entry);
+        if (remaining != null && remaining.isEmpty()) {
+            children.remove(entry);
+        }
+        loopCache.clear();
+    }
+
+    Set<DataStoreEntry> getChildren(DataStoreEntry entry) {
+        var set = children.get(entry);
+        return set != null ? Collections.unmodifiableSet(set) : Set.of();
+    }
+
+    boolean isParentLoop(DataStoreEntry entry, Predicate<DataStoreEntry> present) {
+        var cached = loopCache.get(entry);
+        if (cached != null) {
+            return cached;
+        }
+
+        synchronized (this) {
+            var visited = new ArrayList<DataStoreEntry>();
+            var seen = new HashSet<DataStoreEntry>();
+            var loop = false;
+            DataStoreEntry current = entry;
+            while ((current = parents.get(current)) != null && present.test(current)) {
+                // Reuse already computed results of ancestors
+                var ancestorLoop = loopCache.get(current);
+                if (ancestorLoop != null) {
+                    loop = ancestorLoop;
+                    break;
+                }
+
+                if (!seen.add(current)) {
+                    loop = true;
+                    break;
+                }
+
+                visited.add(current);
+            }
+
+            // Every entry on a chain that leads into a loop also leads into the loop itself
+            // Entries on a chain without a loop are also loop free
+            loopCache.put(entry, loop);
+            for (DataStoreEntry e : visited) {
+                loopCache.putIfAbsent(e, loop);
+            }
+            return loop;
+        }
+    }
+
+    void invalidateLoops() {
+        loopCache.clear();
+    }
+}
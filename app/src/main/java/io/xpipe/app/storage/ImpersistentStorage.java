@@ -19,15 +19,15 @@ public class ImpersistentStorage extends DataStorage {
     public void load() {
         {
             var cat = DataStoreCategory.createNew(null, ALL_CONNECTIONS_CATEGORY_UUID, "All connections");
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         }
         {
             var cat = DataStoreCategory.createNew(null, ALL_SCRIPTS_CATEGORY_UUID, "All scripts");
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         }
         {
             var cat = DataStoreCategory.createNew(null, ALL_IDENTITIES_CATEGORY_UUID, "All identities");
-            storeCategories.add(cat);
+            putStoreCategory(cat);
         }
         {
             var cat = new DataStoreCategory(
@@ -42,7 +42,7 @@ public class ImpersistentStorage extends DataStorage {
                     StoreSortMode.getDefault(),
                     true,
                     true);
-            storeCategories.add(cat);
+            putStoreCategory(cat);
             selectedCategory = getStoreCategoryIfPresent(DEFAULT_CATEGORY_UUID).orElseThrow();
         }
 
@@ -50,7 +50,7 @@ public class ImpersistentStorage extends DataStorage {
                 LOCAL_ID, DataStorage.DEFAULT_CATEGORY_UUID, "Local Machine", new LocalStore());
         e.setConfiguration(
                 StorageElement.Configuration.builder().deletable(false).build());
-        storeEntries.put(e, e);
+        putStoreEntry(e);
         e.validate();
     }
 
@@ -8,6 +8,8 @@ import io.xpipe.app.prefs.AppPrefs;
 import io.xpipe.app.util.EncryptionKey;
 import io.xpipe.app.util.ThreadHelper;
 import io.xpipe.core.process.OsType;
+import io.xpipe.core.store.DataStore;
+import io.xpipe.core.util.FailableSupplier;
 
 import com.fasterxml.jackson.core.JacksonException;
 import lombok.Getter;
@@ -17,17 +19,26 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.crypto.SecretKey;
 
 public class StandardStorage extends DataStorage {
 
-    private final List<Path> directoriesToKeep = new ArrayList<>();
+    private static final int MAX_LOAD_THREADS = 8;
+    private static final Duration SAVE_DELAY = Duration.ofMillis(500);
+
+    private final List<Path> directoriesToKeep = Collections.synchronizedList(new ArrayList<>());
 
     @Getter
     private final DataStorageSyncHandler dataStorageSyncHandler;
@@ -41,6 +52,8 @@ public class StandardStorage extends DataStorage {
     private boolean disposed;
 
     private boolean saveQueued;
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+    private volatile boolean leftoversCheckQueued;
     private final ReentrantLock busyIo = new ReentrantLock();
     private final Set<UUID> inaccessibleEntries = new HashSet<>();
 
@@ -59,6 +72,8 @@ public class StandardStorage extends DataStorage {
             return;
         }
 
+        var loadStart = Instant.now();
+
         try {
             FileUtils.forceMkdir(dir.toFile());
         } catch (Exception e) {
@@ -111,27 +126,7 @@ public class StandardStorage extends DataStorage {
 
         try {
             var exception = new AtomicReference<Exception>();
-            try (var cats = Files.list(categoriesDir)) {
-                cats.filter(Files::isDirectory).forEach(path -> {
-                    try {
-                        try (Stream<Path> list = Files.list(path)) {
-                            if (list.findAny().isEmpty()) {
-                                return;
-                            }
-                        }
-
-                        var c = DataStoreCategory.fromDirectory(path);
-                        c.ifPresent(storeCategories::add);
-                    } catch (IOException ex) {
-                        // IO exceptions are not expected
-                        exception.set(new IOException("Unable to load data from " + path + ". Is it corrupted?", ex));
-                        directoriesToKeep.add(path);
-                    } catch (Exception ex) {
-                        // Data corruption and schema changes are expected
-                        ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
-                    }
-                });
-            }
+            readCategories(exception).forEach(this::putStoreCategory);
 
             // Show one exception
             if (exception.get() != null) {
@@ -141,81 +136,43 @@ public class StandardStorage extends DataStorage {
             setupBuiltinCategories();
             selectedCategory = getStoreCategoryIfPresent(DEFAULT_CATEGORY_UUID).orElseThrow();
 
-            try (var dirs = Files.list(storesDir)) {
-                dirs.filter(Files::isDirectory).forEach(path -> {
-                    try {
-                        try (Stream<Path> list = Files.list(path)) {
-                            if (list.findAny().isEmpty()) {
-                                return;
-                            }
-                        }
-
-                        var entry = DataStoreEntry.fromDirectory(path);
-                        if (entry.isEmpty()) {
-                            return;
-                        }
-
-                        var foundCat = getStoreCategoryIfPresent(entry.get().getCategoryUuid());
-                        if (foundCat.isEmpty()) {
-                            entry.get().setCategoryUuid(null);
-                        }
-
-                        storeEntries.put(entry.get(), entry.get());
-                    } catch (JacksonException ex) {
-                        // Data corruption and schema changes are expected
-
-                        // We only keep invalid entries in developer mode as there's no point in keeping them in
-                        // production.
-                        if (AppPrefs.get().isDevelopmentEnvironment()) {
-                            directoriesToKeep.add(path);
-                        }
-
-                        ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
-                    } catch (IOException ex) {
-                        // IO exceptions are not expected
-                        exception.set(new IOException("Unable to load data from " + path + ". Is it corrupted?", ex));
-                        directoriesToKeep.add(path);
-                    } catch (Exception ex) {
-                        // Data corruption and schema changes are expected
+            var read = readEntries(exception);
+            for (DataStoreEntry entry : read) {
+                var foundCat = getStoreCategoryIfPresent(entry.getCategoryUuid());
+                if (foundCat.isEmpty()) {
+                    entry.setCategoryUuid(null);
+                }
 
-                        // We only keep invalid entries in developer mode as there's no point in keeping them in
-                        // production.
-                        if (AppPrefs.get().isDevelopmentEnvironment()) {
-                            directoriesToKeep.add(path);
-                        }
+                putStoreEntry(entry);
+            }
 
-                        ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
-                    }
-                });
+            // Show one exception
+            if (exception.get() != null) {
+                ErrorEvent.fromThrowable(exception.get()).expected().handle();
+            }
 
-                // Show one exception
-                if (exception.get() != null) {
-                    ErrorEvent.fromThrowable(exception.get()).expected().handle();
+            storeEntriesSet.forEach(e -> {
+                if (e.getCategoryUuid() == null
+                        || getStoreCategoryIfPresent(e.getCategoryUuid()).isEmpty()) {
+                    e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
                 }
 
-                storeEntriesSet.forEach(e -> {
-                    if (e.getCategoryUuid() == null
-                            || getStoreCategoryIfPresent(e.getCategoryUuid()).isEmpty()) {
-                        e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
-                    }
-
-                    if (e.getCategoryUuid() != null && e.getCategoryUuid().equals(ALL_CONNECTIONS_CATEGORY_UUID)) {
-                        e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
-                    }
-                });
-            }
+                if (e.getCategoryUuid() != null && e.getCategoryUuid().equals(ALL_CONNECTIONS_CATEGORY_UUID)) {
+                    e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
+                }
+            });
         } catch (IOException ex) {
             ErrorEvent.fromThrowable(ex).terminal(true).build().handle();
         }
+        var readEnd = Instant.now();
 
-        var hasFixedLocal = storeEntriesSet.stream()
-                .anyMatch(dataStoreEntry -> dataStoreEntry.getUuid().equals(LOCAL_ID));
+        var hasFixedLocal = getStoreEntryIfPresent(LOCAL_ID).isPresent();
 
         if (hasFixedLocal) {
             var local = getStoreEntry(LOCAL_ID);
             if (local.getValidity() == DataStoreEntry.Validity.LOAD_FAILED) {
                 try {
-                    storeEntries.remove(local);
+                    removeStoreEntryInternal(local);
                     local.deleteFromDisk();
                     hasFixedLocal = false;
                 } catch (IOException ex) {
@@ -234,7 +191,7 @@ public class StandardStorage extends DataStorage {
             e.setDirectory(getStoresDir().resolve(LOCAL_ID.toString()));
             e.setConfiguration(
                     StorageElement.Configuration.builder().deletable(false).build());
-            storeEntries.put(e, e);
+            putStoreEntry(e);
             e.validate();
         }
 
@@ -244,30 +201,36 @@ public class StandardStorage extends DataStorage {
         }
 
         // Reload stores, this time with all entry refs present
-        // These do however not have a completed validity yet
-        refreshEntries();
-        // Bring entries into completed validity if possible
-        // Needed for chained stores
-        refreshEntries();
+        // Dependencies are refreshed first to bring chained stores into completed validity in one pass
+        refreshEntriesInDependencyOrder(List.copyOf(storeEntriesSet));
+        var resolveEnd = Instant.now();
+
+        var storesBeforeProviders = new IdentityHashMap<DataStoreEntry, DataStore>();
+        storeEntriesSet.forEach(entry -> storesBeforeProviders.put(entry, entry.getStore()));
         // Let providers work on complete stores
         callProviders();
-        // Update validaties after any possible changes
-        refreshEntries();
         // Add any possible missing synthetic parents
-        storeEntriesSet.forEach(entry -> {
+        List.copyOf(storeEntriesSet).forEach(entry -> {
             var syntheticParent = getSyntheticParent(entry);
             syntheticParent.ifPresent(entry1 -> {
                 addStoreEntryIfNotPresent(entry1);
             });
         });
-        // Update validaties from synthetic parent changes
-        refreshEntries();
+        // Update validities of entries changed by providers and entries that might depend on new synthetic parents
+        refreshEntriesInDependencyOrder(storeEntriesSet.stream()
+                .filter(entry -> storesBeforeProviders.get(entry) != entry.getStore()
+                        || entry.getValidity() == DataStoreEntry.Validity.INCOMPLETE)
+                .toList());
+        var providersEnd = Instant.now();
         // Remove user inaccessible entries only when everything is valid, so we can check the parent hierarchies
         filterPerUserEntries();
 
         if (!hasFixedLocal) {
-            storeEntriesSet.removeIf(dataStoreEntry ->
-                    !dataStoreEntry.getUuid().equals(LOCAL_ID) && dataStoreEntry.getStore() instanceof LocalStore);
+            storeEntriesSet.stream()
+                    .filter(dataStoreEntry -> !dataStoreEntry.getUuid().equals(LOCAL_ID)
+                            && dataStoreEntry.getStore() instanceof LocalStore)
+                    .toList()
+                    .forEach(this::removeStoreEntryInternal);
             storeEntriesSet.stream()
                     .filter(entry -> entry.getValidity() != DataStoreEntry.Validity.LOAD_FAILED)
                     .forEach(entry -> {
@@ -280,11 +243,119 @@ public class StandardStorage extends DataStorage {
 
         deleteLeftovers();
 
+        var loadEnd = Instant.now();
+        TrackEvent.withDebug("Loaded vault")
+                .tag("entries", storeEntriesSet.size())
+                .tag("readMs", Duration.between(loadStart, readEnd).toMillis())
+                .tag("resolveMs", Duration.between(readEnd, resolveEnd).toMillis())
+                .tag("providersMs", Duration.between(resolveEnd, providersEnd).toMillis())
+                .tag("finishMs", Duration.between(providersEnd, loadEnd).toMillis())
+                .handle();
+
         loaded = true;
         busyIo.unlock();
         this.dataStorageSyncHandler.afterStorageLoad();
     }
 
+    protected List<DataStoreCategory> readCategories(AtomicReference<Exception> exception) throws IOException {
+        var list = new ArrayList<DataStoreCategory>();
+        try (var cats = Files.list(getCategoriesDir())) {
+            cats.filter(Files::isDirectory).forEach(path -> {
+                try {
+                    try (Stream<Path> files = Files.list(path)) {
+                        if (files.findAny().isEmpty()) {
+                            return;
+                        }
+                    }
+
+                    var c = DataStoreCategory.fromDirectory(path);
+                    c.ifPresent(list::add);
+                } catch (IOException ex) {
+                    // IO exceptions are not expected
+                    exception.set(new IOException("Unable to load data from " + path + ". Is it corrupted?", ex));
+                    directoriesToKeep.add(path);
+                } catch (Exception ex) {
+                    // Data corruption and schema changes are expected
+                    ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
+                }
+            });
+        }
+        return list;
+    }
+
+    protected List<DataStoreEntry> readEntries(AtomicReference<Exception> exception) throws IOException {
+        List<Path> dirs;
+        try (var s = Files.list(getStoresDir())) {
+            dirs = s.filter(Files::isDirectory).toList();
+        }
+
+        return readInParallel(dirs, path -> readEntry(path, exception));
+    }
+
+    protected <T, R> List<R> readInParallel(List<T> sources, Function<T, R> reader) {
+        // Reading and decrypting entries is independent of each other
+        // Entry refs are not resolved at this point anyway, that is done in the refresh afterward
+        var threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_LOAD_THREADS));
+        try (var executor = Executors.newFixedThreadPool(
+                threads, r -> ThreadHelper.createPlatformThread("vault loader", true, r))) {
+            var futures = sources.stream()
+                    .map(source -> executor.submit(() -> reader.apply(source)))
+                    .toList();
+            var list = new ArrayList<R>();
+            for (var future : futures) {
+                try {
+                    var read = future.get();
+                    if (read != null) {
+                        list.add(read);
+                    }
+                } catch (ExecutionException ex) {
+                    ErrorEvent.fromThrowable(ex.getCause()).omit().handle();
+                } catch (InterruptedException ex) {
+                    ErrorEvent.fromThrowable(ex).omit().handle();
+                    break;
+                }
+            }
+            return list;
+        }
+    }
+
+    private DataStoreEntry readEntry(Path path, AtomicReference<Exception> exception) {
+        // Empty directories are also covered by this as the entry files are missing
+        return readEntry(path, () -> DataStoreEntry.fromDirectory(path), exception);
+    }
+
+    protected DataStoreEntry readEntry(
+            Path path, FailableSupplier<Optional<DataStoreEntry>> reader, AtomicReference<Exception> exception) {
+        try {
+            return reader.get().orElse(null);
+        } catch (JacksonException ex) {
+            // Data corruption and schema changes are expected
+
+            // We only keep invalid entries in developer mode as there's no point in keeping them in
+            // production.
+            if (AppPrefs.get().isDevelopmentEnvironment()) {
+                directoriesToKeep.add(path);
+            }
+
+            ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
+        } catch (IOException ex) {
+            // IO exceptions are not expected
+            exception.set(new IOException("Unable to load data from " + path + ". Is it corrupted?", ex));
+            directoriesToKeep.add(path);
+        } catch (Exception ex) {
+            // Data corruption and schema changes are expected
+
+            // We only keep invalid entries in developer mode as there's no point in keeping them in
+            // production.
+            if (AppPrefs.get().isDevelopmentEnvironment()) {
+                directoriesToKeep.add(path);
+            }
+
+            ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
+        }
+        return null;
+    }
+
     private void filterPerUserEntries() {
         var toRemove = getStoreEntries().stream()
                 .filter(dataStoreEntry -> shouldRemoveOtherUserEntry(dataStoreEntry))
@@ -292,7 +363,7 @@ public class StandardStorage extends DataStorage {
         directoriesToKeep.addAll(toRemove.stream()
                 .map(dataStoreEntry -> dataStoreEntry.getDirectory())
                 .toList());
-        toRemove.forEach(storeEntries::remove);
+        toRemove.forEach(this::removeStoreEntryInternal);
         inaccessibleEntries.addAll(toRemove.stream()
                 .map(dataStoreEntry -> dataStoreEntry.getUuid())
                 .collect(Collectors.toSet()));
@@ -339,11 +410,30 @@ public class StandardStorage extends DataStorage {
             return;
         }
 
+        // Coalesce bursts of changes into one save operation
+        if (!saveScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
         ThreadHelper.runAsync(() -> {
+            ThreadHelper.sleep(SAVE_DELAY.toMillis());
+            saveScheduled.set(false);
             save(false);
         });
     }
 
+    @Override
+    protected void removeStoreEntryInternal(DataStoreEntry e) {
+        super.removeStoreEntryInternal(e);
+        leftoversCheckQueued = true;
+    }
+
+    @Override
+    protected void removeStoreCategoryInternal(DataStoreCategory cat) {
+        super.removeStoreCategoryInternal(cat);
+        leftoversCheckQueued = true;
+    }
+
     public void save(boolean dispose) {
         try {
             // If another save operation is in progress, we have to wait on dispose
@@ -370,6 +460,28 @@ public class StandardStorage extends DataStorage {
 
         this.dataStorageSyncHandler.beforeStorageSave();
 
+        var exception = new AtomicReference<Exception>();
+        writeElements(exception);
+
+        // Show one exception
+        if (exception.get() != null) {
+            ErrorEvent.fromThrowable(exception.get()).expected().handle();
+        }
+
+        dataStorageUserHandler.save();
+        dataStorageSyncHandler.afterStorageSave();
+        if (dispose) {
+            disposed = true;
+        }
+
+        busyIo.unlock();
+        if (!dispose && saveQueued) {
+            // Avoid stack overflow by doing it async
+            saveAsync();
+        }
+    }
+
+    protected void writeElements(AtomicReference<Exception> exception) {
         try {
             FileUtils.forceMkdir(getStoresDir().toFile());
             FileUtils.forceMkdir(getCategoriesDir().toFile());
@@ -381,14 +493,14 @@ public class StandardStorage extends DataStorage {
                     .handle();
         }
 
-        var exception = new AtomicReference<Exception>();
-
+        // Only elements with changes are written, so we can skip the file system check for the others
+        var categoryChanges = new ArrayList<DataStorageSyncHandler.ElementChange<DataStoreCategory>>();
         storeCategories.forEach(e -> {
             try {
-                var exists = Files.exists(e.getDirectory());
                 var dirty = e.isDirty();
+                var exists = !dirty || Files.exists(e.getDirectory());
                 e.writeDataToDisk();
-                dataStorageSyncHandler.handleCategory(e, exists, dirty);
+                categoryChanges.add(new DataStorageSyncHandler.ElementChange<>(e, exists, dirty));
             } catch (IOException ex) {
                 // IO exceptions are not expected
                 exception.set(ex);
@@ -398,37 +510,28 @@ public class StandardStorage extends DataStorage {
             }
         });
 
+        dataStorageSyncHandler.handleCategories(categoryChanges);
+
+        var entryChanges = new ArrayList<DataStorageSyncHandler.ElementChange<DataStoreEntry>>();
         storeEntriesSet.stream()
                 .filter(dataStoreEntry -> dataStoreEntry.shouldSave())
                 .forEach(e -> {
                     try {
-                        var exists = Files.exists(e.getDirectory());
                         var dirty = e.isDirty();
+                        var exists = !dirty || Files.exists(e.getDirectory());
                         e.writeDataToDisk();
-                        dataStorageSyncHandler.handleEntry(e, exists, dirty);
+                        entryChanges.add(new DataStorageSyncHandler.ElementChange<>(e, exists, dirty));
                     } catch (Exception ex) {
                         // Data corruption and schema changes are expected
                         exception.set(ex);
                         ErrorEvent.fromThrowable(ex).expected().omit().build().handle();
                     }
                 });
+        dataStorageSyncHandler.handleEntries(entryChanges);
 
-        // Show one exception
-        if (exception.get() != null) {
-            ErrorEvent.fromThrowable(exception.get()).expected().handle();
-        }
-
-        deleteLeftovers();
-        dataStorageUserHandler.save();
-        dataStorageSyncHandler.afterStorageSave();
-        if (dispose) {
-            disposed = true;
-        }
-
-        busyIo.unlock();
-        if (!dispose && saveQueued) {
-            // Avoid stack overflow by doing it async
-            saveAsync();
+        // Leftovers can only exist if something was removed since the last check
+        if (leftoversCheckQueued) {
+            deleteLeftovers();
         }
     }
 
@@ -442,7 +545,8 @@ public class StandardStorage extends DataStorage {
         return inaccessibleEntries.contains(uuid);
     }
 
-    private void deleteLeftovers() {
+    protected void deleteLeftovers() {
+        leftoversCheckQueued = false;
         var storesDir = getStoresDir();
         var categoriesDir = getCategoriesDir();
 
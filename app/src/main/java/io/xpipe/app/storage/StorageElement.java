@@ -1,5 +1,7 @@
 package io.xpipe.app.storage;
 
+import io.xpipe.core.util.FailableSupplier;
+
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -9,12 +11,14 @@ import lombok.extern.jackson.Jacksonized;
 import org.apache.commons.io.FileUtils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
 
 public abstract class StorageElement {
 
@@ -23,6 +27,9 @@ public abstract class StorageElement {
 
     protected final List<Listener> listeners = new ArrayList<>();
 
+    // Hashes of the last written content of each file, used to skip unchanged files on save
+    private final Map<String, byte[]> writtenContentHashes = new HashMap<>();
+
     @Getter
     protected boolean dirty;
 
@@ -108,6 +115,40 @@ public abstract class StorageElement {
 
     public abstract void writeDataToDisk() throws Exception;
 
+    protected boolean writeFileIfChanged(Path file, String content) throws Exception {
+        return writeFileIfChanged(file, content, () -> content);
+    }
+
+    protected synchronized boolean writeFileIfChanged(Path file, String hashSource, FailableSupplier<String> content)
+            throws Exception {
+        var key = file.getFileName().toString();
+        var md = MessageDigest.getInstance("MD5");
+        var hash = md.digest(hashSource.getBytes(StandardCharsets.UTF_8));
+        if (Arrays.equals(writtenContentHashes.get(key), hash) && Files.exists(file)) {
+            return false;
+        }
+
+        // Write to a temporary file first so that the file is never left in a partially written state
+        var temp = file.resolveSibling(key + ".tmp");
+        Files.writeString(temp, content.get());
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        writtenContentHashes.put(key, hash);
+        return true;
+    }
+
+    protected synchronized void deleteFileIfExists(Path file) throws IOException {
+        writtenContentHashes.remove(file.getFileName().toString());
+        Files.deleteIfExists(file);
+    }
+
+    protected synchronized void clearWrittenContentHashes() {
+        writtenContentHashes.clear();
+    }
+
     public synchronized Instant getLastAccess() {
         if (getLastUsed() == null) {
             return getLastModified();
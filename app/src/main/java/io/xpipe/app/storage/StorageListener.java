@@ -13,4 +13,6 @@ public interface StorageListener {
     void onCategoryRemove(DataStoreCategory category);
 
     void onEntryCategoryChange(DataStoreCategory from, DataStoreCategory to);
+
+    default void onStoreParentChange(DataStoreEntry entry) {}
 }
@@ -35,12 +35,19 @@ public class TerminalLaunchRequest {
     boolean setupCompleted;
 
     @NonFinal
-    CountDownLatch latch;
+    volatile CountDownLatch latch;
 
     public Path waitForCompletion() throws BeaconServerException {
         while (true) {
-            if (latch.getCount() > 0) {
-                ThreadHelper.sleep(10);
+            var l = latch;
+            try {
+                l.await();
+            } catch (InterruptedException e) {
+                throw new BeaconServerException(e);
+            }
+
+            // The request might have been submitted again in the meantime
+            if (l != latch) {
                 continue;
             }
 
@@ -85,66 +85,121 @@ public class DerivedObservableList<T> {
         target.setAll(newList);
     }
 
-    private int indexOfFromStart(List<? extends T> list, T value, int start) {
-        for (int i = start; i < list.size(); i++) {
-            if (Objects.equals(list.get(i), value)) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
     private void setContentUnique(List<? extends T> newList) {
-        var listSet = new HashSet<>(list);
-        var newSet = new HashSet<>(newList);
+        var newIndex = new HashMap<T, Integer>(newList.size() * 2);
+        for (int i = 0; i < newList.size(); i++) {
+            newIndex.put(newList.get(i), i);
+        }
 
-        // Addition
-        if (newSet.containsAll(list)) {
-            var l = new ArrayList<>(newList);
-            l.removeIf(t -> !listSet.contains(t));
-            // Reordering occurred
-            if (!l.equals(list)) {
-                list.setAll(newList);
-                return;
+        // Reordering would require a permutation, which not every list supports, e.g. the children of a node
+        // Moved elements are therefore removed and inserted again at their new position
+        // Elements of the longest subsequence that is already in the new order can stay in place
+        var retained = new ArrayList<Integer>();
+        for (T t : list) {
+            var index = newIndex.get(t);
+            if (index != null) {
+                retained.add(index);
             }
+        }
+        var inOrder = longestIncreasingSubsequence(retained);
+        var keep = new HashSet<T>(inOrder.size() * 2);
+        for (Integer index : inOrder) {
+            keep.add(newList.get(index));
+        }
 
-            var start = 0;
-            for (int end = 0; end <= list.size(); end++) {
-                var index = end < list.size() ? indexOfFromStart(newList, list.get(end), end) : newList.size();
-                for (; start < index; start++) {
-                    list.add(start, newList.get(start));
-                }
-                start = index + 1;
+        // Every removed range and inserted run is a separate change event for the listeners
+        // If the list is mostly rebuilt anyway, replacing the whole content once is cheaper
+        var changes = 0;
+        var removing = false;
+        for (T t : list) {
+            var removed = !keep.contains(t);
+            if (removed && !removing) {
+                changes++;
+            }
+            removing = removed;
+        }
+        var adding = false;
+        for (T t : newList) {
+            var added = !keep.contains(t);
+            if (added && !adding) {
+                changes++;
             }
+            adding = added;
+        }
+        if (changes > newList.size() / 2) {
+            list.setAll(newList);
             return;
         }
 
-        // Removal
-        if (listSet.containsAll(newList)) {
-            var l = new ArrayList<>(list);
-            l.removeIf(t -> !newSet.contains(t));
-            // Reordering occurred
-            if (!l.equals(newList)) {
-                list.setAll(newList);
-                return;
+        // Remove elements that are no longer present or have moved, in contiguous ranges from the back
+        var i = list.size();
+        while (i > 0) {
+            var to = i;
+            while (i > 0 && !keep.contains(list.get(i - 1))) {
+                i--;
             }
+            if (i < to) {
+                list.remove(i, to);
+            }
+            while (i > 0 && keep.contains(list.get(i - 1))) {
+                i--;
+            }
+        }
 
-            var toRemove = new ArrayList<>(list);
-            toRemove.removeIf(t -> newSet.contains(t));
-            list.removeAll(toRemove);
-            return;
+        // The current list is now a subsequence of the new list, so we only have to insert the missing runs
+        var k = 0;
+        while (k < newList.size()) {
+            if (k < list.size() && Objects.equals(list.get(k), newList.get(k))) {
+                k++;
+                continue;
+            }
+
+            var next = k < list.size() ? list.get(k) : null;
+            var end = k;
+            while (end < newList.size() && (next == null || !Objects.equals(newList.get(end), next))) {
+                end++;
+            }
+            list.addAll(k, newList.subList(k, end));
+            k = end;
         }
+    }
 
-        // Other cases are more difficult
-        list.setAll(newList);
+    private static List<Integer> longestIncreasingSubsequence(List<Integer> values) {
+        // Patience sorting, tails[l] is the position of the smallest value that ends a subsequence of length l + 1
+        var tails = new int[values.size()];
+        var previous = new int[values.size()];
+        var length = 0;
+        for (int i = 0; i < values.size(); i++) {
+            var value = values.get(i);
+            var low = 0;
+            var high = length;
+            while (low < high) {
+                var mid = (low + high) >>> 1;
+                if (values.get(tails[mid]) < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        var result = new ArrayList<Integer>(length);
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            result.add(values.get(i));
+        }
+        Collections.reverse(result);
+        return result;
     }
 
     public <V> DerivedObservableList<V> mapped(Function<T, V> map) {
         var cache = new HashMap<T, V>();
         var l1 = this.<V>createNewDerived();
         Runnable runnable = () -> {
-            var listSet = new HashSet<>(list);
-            cache.keySet().removeIf(t -> !listSet.contains(t));
             l1.setContent(list.stream()
                     .map(v -> {
                         if (!cache.containsKey(v)) {
@@ -157,6 +212,15 @@ public class DerivedObservableList<T> {
         };
         runnable.run();
         list.addListener((ListChangeListener<? super T>) c -> {
+            // Only check for stale cache entries if something was actually removed
+            var removed = false;
+            while (c.next()) {
+                removed |= c.wasRemoved();
+            }
+            if (removed) {
+                var listSet = new HashSet<>(list);
+                cache.keySet().removeIf(t -> !listSet.contains(t));
+            }
             runnable.run();
         });
         return l1;
@@ -224,6 +288,21 @@ public class DerivedObservableList<T> {
         };
         runnable.run();
         list.addListener((ListChangeListener<? super T>) c -> {
+            // Removing elements does not change the order of the remaining ones
+            var removed = new ArrayList<T>();
+            var onlyRemoved = true;
+            while (c.next()) {
+                if (c.wasPermutated() || c.wasAdded() || c.wasUpdated()) {
+                    onlyRemoved = false;
+                    break;
+                }
+                removed.addAll(c.getRemoved());
+            }
+            if (onlyRemoved && unique) {
+                d.list.removeAll(removed);
+                return;
+            }
+
             runnable.run();
         });
         comp.addListener(observable -> {
@@ -0,0 +1,219 @@
+package io.xpipe.app.util;
+
+import io.xpipe.app.core.AppCache;
+import io.xpipe.app.issue.TrackEvent;
+import io.xpipe.core.process.ShellControl;
+import io.xpipe.core.util.FailableSupplier;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Remembers facts about the systems of shell stores, e.g. which applications are installed or which users exist,
+ * across shell sessions and restarts. Every fact expires after its own time to live.
+ * All facts of a store are discarded when the store fails to connect, is edited, or its system or shell dialect changes.
+ * Only the shell session of the store itself is cached, elevated or other derived sessions might run as a different user.
+ */
+public class HostCapabilityCache {
+
+    private static final String CACHE_KEY = "hostCapabilities";
+    private static final Duration SAVE_DELAY = Duration.ofSeconds(2);
+
+    private static HostCapabilityCache INSTANCE;
+
+    private final Map<UUID, Host> hosts = new ConcurrentHashMap<>();
+    private boolean saveScheduled;
+
+    public static synchronized HostCapabilityCache get() {
+        if (INSTANCE == null) {
+            INSTANCE = new HostCapabilityCache();
+            Host[] loaded = AppCache.getNonNull(CACHE_KEY, Host[].class, () -> new Host[0]);
+            var now = System.currentTimeMillis();
+            for (Host host : loaded) {
+                if (host.getStore() == null || host.getEntries() == null) {
+                    continue;
+                }
+
+                var entries = new HashMap<>(host.getEntries());
+                entries.values().removeIf(e -> e.getExpires() < now);
+                INSTANCE.hosts.put(
+                        host.getStore(),
+                        Host.builder()
+                                .store(host.getStore())
+                                .fingerprint(host.getFingerprint())
+                                .entries(entries)
+                                .build());
+            }
+        }
+        return INSTANCE;
+    }
+
+    private static String getFingerprint(ShellControl sc) {
+        return sc.getOsType().getName() + "/" + sc.getShellDialect().getId();
+    }
+
+    private static Optional<UUID> getStore(ShellControl sc) {
+        var store = sc.getSourceStoreId();
+        if (store.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Sudo, su, and other elevated sub shells keep the store id of their parent
+        var parentStore = sc.getParentControl().flatMap(ShellControl::getSourceStoreId);
+        if (parentStore.isPresent() && parentStore.get().equals(store.get())) {
+            return Optional.empty();
+        }
+
+        return store;
+    }
+
+    /**
+     * Returns the cached value for the system of the shell control or computes it if it is not known or expired.
+     * Shell controls that do not belong to a store are not cached.
+     */
+    public String getOrCompute(ShellControl sc, String key, Duration ttl, FailableSupplier<String> value)
+            throws Exception {
+        return getOrCompute(sc, key, s -> ttl, value);
+    }
+
+    /**
+     * Like {@link #getOrCompute(ShellControl, String, Duration, FailableSupplier)}, but the time to live depends on the
+     * computed value. Values with a zero time to live are not cached.
+     */
+    public String getOrCompute(
+            ShellControl sc, String key, Function<String, Duration> ttl, FailableSupplier<String> value)
+            throws Exception {
+        var store = getStore(sc).orElse(null);
+        if (store == null) {
+            return value.get();
+        }
+
+        checkFingerprint(store, getFingerprint(sc));
+        var cached = get(store, key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        var computed = value.get();
+        if (computed != null) {
+            var duration = ttl.apply(computed);
+            if (duration.isPositive()) {
+                put(store, key, computed, duration);
+            }
+        }
+        return computed;
+    }
+
+    public Optional<String> get(UUID store, String key) {
+        var host = hosts.get(store);
+        if (host == null) {
+            return Optional.empty();
+        }
+
+        var entry = host.getEntries().get(key);
+        if (entry == null || entry.getExpires() < System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(entry.getValue());
+    }
+
+    public void put(UUID store, String key, String value, Duration ttl) {
+        var entry = Entry.builder()
+                .value(value)
+                .expires(System.currentTimeMillis() + ttl.toMillis())
+                .build();
+        hosts.compute(store, (k, host) -> {
+            var entries = host != null ? new HashMap<>(host.getEntries()) : new HashMap<String, Entry>();
+            entries.put(key, entry);
+            return Host.builder()
+                    .store(store)
+                    .fingerprint(host != null ? host.getFingerprint() : null)
+                    .entries(entries)
+                    .build();
+        });
+        scheduleSave();
+    }
+
+    public void invalidate(UUID store) {
+        if (hosts.remove(store) != null) {
+            TrackEvent.withTrace("Invalidated host capabilities")
+                    .tag("store", store)
+                    .handle();
+            scheduleSave();
+        }
+    }
+
+    private void checkFingerprint(UUID store, String fingerprint) {
+        var host = hosts.get(store);
+        if (host != null && fingerprint.equals(host.getFingerprint())) {
+            return;
+        }
+
+        var changed = new AtomicBoolean();
+        hosts.compute(store, (k, h) -> {
+            if (h != null && fingerprint.equals(h.getFingerprint())) {
+                return h;
+            }
+
+            // The system behind the store has changed, so nothing that we know about it is valid anymore
+            var keep = h == null || h.getFingerprint() == null;
+            changed.set(!keep);
+            return Host.builder()
+                    .store(store)
+                    .fingerprint(fingerprint)
+                    .entries(keep && h != null ? h.getEntries() : Map.of())
+                    .build();
+        });
+
+        if (changed.get()) {
+            TrackEvent.withTrace("Host system changed, discarding capabilities")
+                    .tag("store", store)
+                    .tag("fingerprint", fingerprint)
+                    .handle();
+        }
+        scheduleSave();
+    }
+
+    private synchronized void scheduleSave() {
+        if (saveScheduled) {
+            return;
+        }
+
+        // Batch the many small updates that happen when connecting to a system
+        saveScheduled = true;
+        ThreadHelper.runAsync(() -> {
+            ThreadHelper.sleep(SAVE_DELAY.toMillis());
+            synchronized (this) {
+                saveScheduled = false;
+            }
+            AppCache.update(CACHE_KEY, hosts.values().toArray(Host[]::new));
+        });
+    }
+
+    @Value
+    @Jacksonized
+    @Builder
+    public static class Host {
+
+        UUID store;
+        String fingerprint;
+        Map<String, Entry> entries;
+    }
+
+    @Value
+    @Jacksonized
+    @Builder
+    public static class Entry {
+
+        String value;
+        long expires;
+    }
+}
@@ -19,6 +19,12 @@ public class PasswdFile {
         return passwdFile;
     }
 
+    public static PasswdFile parse(String content) {
+        var passwdFile = new PasswdFile();
+        passwdFile.parseUsers(content);
+        return passwdFile;
+    }
+
     private final Map<Integer, String> users = new LinkedHashMap<>();
 
     public OptionalInt getUidForUserIfPresent(String name) {
@@ -42,6 +48,10 @@ public class PasswdFile {
         var lines = sc.command(CommandBuilder.of().add("cat").addFile("/etc/passwd"))
                 .readStdoutIfPossible()
                 .orElse("");
+        parseUsers(lines);
+    }
+
+    private void parseUsers(String lines) {
         lines.lines().forEach(s -> {
             var split = s.split(":");
             try {
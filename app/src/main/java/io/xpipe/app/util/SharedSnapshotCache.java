@@ -0,0 +1,101 @@
+package io.xpipe.app.util;
+
+import io.xpipe.core.util.FailableSupplier;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shares the result of an expensive query, e.g. a listing of all containers of a host, for a short time.
+ * Concurrent requests for the same key while a query is running wait for that query instead of starting another one.
+ */
+public class SharedSnapshotCache<K, V> {
+
+    private final Duration ttl;
+    private final Map<K, Snapshot<V>> snapshots = new HashMap<>();
+
+    public SharedSnapshotCache(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns the current snapshot for the key if it is not older than the time to live, otherwise queries a new one.
+     */
+    public V get(K key, FailableSupplier<V> query) throws Exception {
+        return get(key, query, false, null);
+    }
+
+    /**
+     * Like {@link #get(Object, FailableSupplier)}, but only uses snapshots whose query was started at or after the
+     * given {@link System#nanoTime()}. This can be used to observe the effects of an action that started at that
+     * time while still sharing the query with other callers that wait for the same action.
+     */
+    public V get(K key, FailableSupplier<V> query, long notBefore) throws Exception {
+        return get(key, query, false, notBefore);
+    }
+
+    /**
+     * Queries a new snapshot for the key. If a query is already running, its result is used instead.
+     */
+    public V refresh(K key, FailableSupplier<V> query) throws Exception {
+        return get(key, query, true, null);
+    }
+
+    public synchronized void invalidate(K key) {
+        snapshots.remove(key);
+    }
+
+    private V get(K key, FailableSupplier<V> query, boolean refresh, Long notBefore) throws Exception {
+        Snapshot<V> snapshot;
+        var owner = false;
+        synchronized (this) {
+            snapshot = snapshots.get(key);
+            // Snapshots that are replaced while running are still completed for the callers that wait for them
+            if (snapshot == null
+                    || (notBefore != null && snapshot.started - notBefore < 0)
+                    || (snapshot.future.isDone() && (refresh || snapshot.isExpired(ttl)))) {
+                snapshot = new Snapshot<>();
+                snapshots.put(key, snapshot);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            try {
+                var value = query.get();
+                snapshot.completed = System.nanoTime();
+                snapshot.future.complete(value);
+                return value;
+            } catch (Throwable t) {
+                synchronized (this) {
+                    snapshots.remove(key, snapshot);
+                }
+                snapshot.future.completeExceptionally(t);
+                throw t;
+            }
+        }
+
+        try {
+            return snapshot.future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception e) {
+                throw e;
+            }
+            throw ex;
+        }
+    }
+
+    private static class Snapshot<V> {
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private final long started = System.nanoTime();
+        private volatile long completed;
+
+        private boolean isExpired(Duration ttl) {
+            return System.nanoTime() - completed > ttl.toNanos();
+        }
+    }
+}
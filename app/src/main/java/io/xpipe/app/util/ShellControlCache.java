@@ -5,6 +5,8 @@ import io.xpipe.core.util.FailableSupplier;
 
 import lombok.Getter;
 
+import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -12,9 +14,11 @@ import java.util.function.Supplier;
 @Getter
 public class ShellControlCache {
 
+    private static final Duration IN_PATH_TTL = Duration.ofDays(1);
+
     private final ShellControl shellControl;
-    private final Map<String, Boolean> installedApplications = new HashMap<>();
-    private final Map<String, Object> multiPurposeCache = new HashMap<>();
+    private final Map<String, Boolean> installedApplications = Collections.synchronizedMap(new HashMap<>());
+    private final Map<String, Object> multiPurposeCache = Collections.synchronizedMap(new HashMap<>());
 
     public ShellControlCache(ShellControl shellControl) {
         this.shellControl = shellControl;
@@ -43,21 +47,34 @@ public class ShellControlCache {
     }
 
     public void setIfAbsentFailable(String key, FailableSupplier<Object> value) throws Exception {
-        if (multiPurposeCache.get(key) == null) {
-            multiPurposeCache.put(key, value.get());
+        synchronized (multiPurposeCache) {
+            if (multiPurposeCache.get(key) == null) {
+                multiPurposeCache.put(key, value.get());
+            }
         }
     }
 
     public boolean isApplicationInPath(String app) {
-        if (!installedApplications.containsKey(app)) {
-            try {
-                var b = CommandSupport.isInPath(shellControl, app);
-                installedApplications.put(app, b);
-            } catch (Exception e) {
-                installedApplications.put(app, false);
-            }
+        // Don't hold the map lock while running a command
+        var cached = installedApplications.get(app);
+        if (cached != null) {
+            return cached;
         }
 
-        return installedApplications.get(app);
+        boolean found;
+        try {
+            var b = HostCapabilityCache.get()
+                    .getOrCompute(
+                            shellControl,
+                            "inPath." + app,
+                            // The application might be installed at any time, so only remember that it exists
+                            s -> Boolean.parseBoolean(s) ? IN_PATH_TTL : Duration.ZERO,
+                            () -> String.valueOf(CommandSupport.isInPath(shellControl, app)));
+            found = Boolean.parseBoolean(b);
+        } catch (Exception e) {
+            found = false;
+        }
+        installedApplications.put(app, found);
+        return found;
     }
 }
@@ -13,11 +13,14 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.stream.Stream;
 
 public class ShellTemp {
 
+    private static final Duration USERNAME_TTL = Duration.ofDays(7);
+
     public static Path getLocalTempDataDirectory(String sub) {
         var temp = FileUtils.getTempDirectory().toPath().resolve("xpipe");
         // On Windows and macOS, we already have user specific temp directories
@@ -51,7 +54,9 @@ public class ShellTemp {
             // This command should work in all shells
             proc.command("chmod 777 " + proc.getShellDialect().fileArgument(base))
                     .executeAndCheck();
-            var user = proc.getShellDialect().printUsernameCommand(proc).readStdoutOrThrow();
+            var user = HostCapabilityCache.get().getOrCompute(proc, "username", USERNAME_TTL, () -> proc.getShellDialect()
+                    .printUsernameCommand(proc)
+                    .readStdoutOrThrow());
             base = temp.join(user);
         } else {
             var temp = proc.getSystemTemporaryDirectory();
@@ -128,6 +128,8 @@ open module io.xpipe.app {
             ShellStartExchangeImpl,
             ShellStopExchangeImpl,
             ShellExecExchangeImpl,
+            ShellExecStreamExchangeImpl,
+            BatchExchangeImpl,
             ConnectionQueryExchangeImpl,
             ConnectionInfoExchangeImpl,
             ConnectionRemoveExchangeImpl,
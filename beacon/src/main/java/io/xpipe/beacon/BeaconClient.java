@@ -4,6 +4,7 @@ import io.xpipe.beacon.api.HandshakeExchange;
 import io.xpipe.core.util.JacksonMapper;
 import io.xpipe.core.util.XPipeInstallation;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.SneakyThrows;
 
@@ -12,8 +13,10 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class BeaconClient {
 
@@ -52,10 +55,70 @@ public class BeaconClient {
             System.out.println(content);
         }
 
+        var response = send(prov, content, HttpResponse.BodyHandlers.ofString());
+
+        if (BeaconConfig.printMessages()) {
+            System.out.println("Received raw response:");
+            System.out.println(response.body());
+        }
+
+        checkError(response.statusCode(), response.body());
+
+        try {
+            var reader = JacksonMapper.getDefault().readerFor(prov.getResponseClass());
+            var emptyResponseClass = prov.getResponseClass().getDeclaredFields().length == 0;
+            var body = response.body();
+            if (emptyResponseClass && body.isBlank()) {
+                return createDefaultResponse(prov);
+            }
+            var v = (RES) reader.readValue(body);
+            return v;
+        } catch (IOException ex) {
+            throw new BeaconConnectorException("Couldn't parse response", ex);
+        }
+    }
+
+    /**
+     * Performs a request to an endpoint that streams its response as newline-delimited json frames,
+     * e.g. {@link io.xpipe.beacon.api.ShellExecStreamExchange}. Frames are passed to the consumer as soon as they
+     * are received. The next frame is only read after the consumer has returned.
+     */
+    public <REQ, F> void performStreamingRequest(REQ req, Class<F> frameClass, Consumer<F> consumer)
+            throws BeaconConnectorException, BeaconClientException, BeaconServerException {
+        ObjectNode node = JacksonMapper.getDefault().valueToTree(req);
+        var prov = BeaconInterface.byRequest(req);
+        if (prov.isEmpty()) {
+            throw new IllegalArgumentException("Unknown request class " + req.getClass());
+        }
+
+        var response = send(prov.get(), node.toPrettyString(), HttpResponse.BodyHandlers.ofInputStream());
+        try (var in = response.body()) {
+            if (response.statusCode() >= 400) {
+                checkError(response.statusCode(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                return;
+            }
+
+            try (MappingIterator<F> it =
+                    JacksonMapper.getDefault().readerFor(frameClass).readValues(in)) {
+                while (it.hasNextValue()) {
+                    var frame = it.nextValue();
+                    if (BeaconConfig.printMessages()) {
+                        System.out.println("Received frame:");
+                        System.out.println(frame);
+                    }
+                    consumer.accept(frame);
+                }
+            }
+        } catch (IOException ex) {
+            throw new BeaconConnectorException("Couldn't read response", ex);
+        }
+    }
+
+    private <B> HttpResponse<B> send(BeaconInterface<?> prov, String content, HttpResponse.BodyHandler<B> handler)
+            throws BeaconConnectorException {
         var client = HttpClient.newBuilder()
                 .followRedirects(HttpClient.Redirect.NORMAL)
                 .build();
-        HttpResponse<String> response;
         try {
             // Use direct IP to prevent DNS lookups and potential blocks (e.g. portmaster)
             var uri = URI.create("http://127.0.0.1:" + port + prov.getPath());
@@ -66,38 +129,23 @@ public class BeaconClient {
             var httpRequest = builder.uri(uri)
                     .POST(HttpRequest.BodyPublishers.ofString(content))
                     .build();
-            response = client.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+            return client.send(httpRequest, handler);
         } catch (Exception ex) {
             throw new BeaconConnectorException("Couldn't send request", ex);
         }
+    }
 
-        if (BeaconConfig.printMessages()) {
-            System.out.println("Received raw response:");
-            System.out.println(response.body());
-        }
-
-        var se = parseServerError(response);
+    private void checkError(int statusCode, String body)
+            throws BeaconConnectorException, BeaconClientException, BeaconServerException {
+        var se = parseServerError(statusCode, body);
         if (se.isPresent()) {
             se.get().throwError();
         }
 
-        var ce = parseClientError(response);
+        var ce = parseClientError(statusCode, body);
         if (ce.isPresent()) {
             throw ce.get().throwException();
         }
-
-        try {
-            var reader = JacksonMapper.getDefault().readerFor(prov.getResponseClass());
-            var emptyResponseClass = prov.getResponseClass().getDeclaredFields().length == 0;
-            var body = response.body();
-            if (emptyResponseClass && body.isBlank()) {
-                return createDefaultResponse(prov);
-            }
-            var v = (RES) reader.readValue(body);
-            return v;
-        } catch (IOException ex) {
-            throw new BeaconConnectorException("Couldn't parse response", ex);
-        }
     }
 
     @SneakyThrows
@@ -126,28 +174,28 @@ public class BeaconClient {
         return performRequest(prov.get(), node.toPrettyString());
     }
 
-    private Optional<BeaconClientErrorResponse> parseClientError(HttpResponse<String> response)
+    private Optional<BeaconClientErrorResponse> parseClientError(int statusCode, String body)
             throws BeaconConnectorException {
-        if (response.statusCode() < 400 || response.statusCode() > 499) {
+        if (statusCode < 400 || statusCode > 499) {
             return Optional.empty();
         }
 
         try {
-            var v = JacksonMapper.getDefault().readValue(response.body(), BeaconClientErrorResponse.class);
+            var v = JacksonMapper.getDefault().readValue(body, BeaconClientErrorResponse.class);
             return Optional.of(v);
         } catch (IOException ex) {
             throw new BeaconConnectorException("Couldn't parse client error message", ex);
         }
     }
 
-    private Optional<BeaconServerErrorResponse> parseServerError(HttpResponse<String> response)
+    private Optional<BeaconServerErrorResponse> parseServerError(int statusCode, String body)
             throws BeaconConnectorException {
-        if (response.statusCode() < 500 || response.statusCode() > 599) {
+        if (statusCode < 500 || statusCode > 599) {
             return Optional.empty();
         }
 
         try {
-            var v = JacksonMapper.getDefault().readValue(response.body(), BeaconServerErrorResponse.class);
+            var v = JacksonMapper.getDefault().readValue(body, BeaconServerErrorResponse.class);
             return Optional.of(v);
         } catch (IOException ex) {
             throw new BeaconConnectorException("Couldn't parse client error message", ex);
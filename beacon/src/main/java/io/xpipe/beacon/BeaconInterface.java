@@ -88,6 +88,14 @@ public abstract class BeaconInterface<T> {
         return true;
     }
 
+    /**
+     * Checks whether requests can be part of a batch request. Requests that read or write the http body directly
+     * can't be part of a batch.
+     */
+    public boolean isBatchable() {
+        return !readRawRequestBody();
+    }
+
     public Object getSynchronizationObject() {
         return null;
     }
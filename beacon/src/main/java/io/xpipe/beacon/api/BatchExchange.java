@@ -0,0 +1,64 @@
+package io.xpipe.beacon.api;
+
+import io.xpipe.beacon.BeaconInterface;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+/**
+ * Performs multiple requests to other endpoints at once. Operations for different connections are performed
+ * concurrently, operations that share a connection are performed in order. Operations without a connection act as
+ * a barrier for all other operations. The results are returned in the same order as the operations.
+ */
+public class BatchExchange extends BeaconInterface<BatchExchange.Request> {
+
+    @Override
+    public String getPath() {
+        return "/batch";
+    }
+
+    @Override
+    public boolean isBatchable() {
+        return false;
+    }
+
+    @Jacksonized
+    @Builder
+    @Value
+    public static class Request {
+        @NonNull
+        List<@NonNull Operation> operations;
+    }
+
+    @Jacksonized
+    @Builder
+    @Value
+    public static class Operation {
+        @NonNull
+        String path;
+
+        JsonNode request;
+    }
+
+    @Jacksonized
+    @Builder
+    @Value
+    public static class Response {
+        @NonNull
+        List<@NonNull Result> results;
+    }
+
+    @Jacksonized
+    @Builder
+    @Value
+    public static class Result {
+        int status;
+
+        JsonNode response;
+    }
+}
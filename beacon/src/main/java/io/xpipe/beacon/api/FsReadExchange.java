@@ -17,6 +17,11 @@ public class FsReadExchange extends BeaconInterface<FsReadExchange.Request> {
         return "/fs/read";
     }
 
+    @Override
+    public boolean isBatchable() {
+        return false;
+    }
+
     @Jacksonized
     @Builder
     @Value
@@ -0,0 +1,71 @@
+package io.xpipe.beacon.api;
+
+import io.xpipe.beacon.BeaconInterface;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.UUID;
+
+/**
+ * Like {@link ShellExecExchange}, but the output is sent while the command is running as newline-delimited json
+ * frames. The last frame contains the exit code, or an error message if the command could not be run to completion.
+ */
+public class ShellExecStreamExchange extends BeaconInterface<ShellExecStreamExchange.Request> {
+
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    @Override
+    public String getPath() {
+        return "/shell/execStream";
+    }
+
+    @Override
+    public boolean isBatchable() {
+        return false;
+    }
+
+    @Jacksonized
+    @Builder
+    @Value
+    public static class Request {
+        @NonNull
+        UUID connection;
+
+        @NonNull
+        String command;
+    }
+
+    @Jacksonized
+    @Builder
+    @Value
+    public static class Response {}
+
+    public enum FrameType {
+        @JsonProperty("stdout")
+        STDOUT,
+        @JsonProperty("stderr")
+        STDERR,
+        @JsonProperty("exit")
+        EXIT,
+        @JsonProperty("error")
+        ERROR
+    }
+
+    @Jacksonized
+    @Builder
+    @Value
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Frame {
+        @NonNull
+        FrameType type;
+
+        String data;
+
+        Long exitCode;
+    }
+}
@@ -30,6 +30,7 @@ open module io.xpipe.beacon {
             ShellStartExchange,
             ShellStopExchange,
             ShellExecExchange,
+            ShellExecStreamExchange,
             DaemonModeExchange,
             DaemonStatusExchange,
             DaemonFocusExchange,
@@ -55,5 +56,6 @@ open module io.xpipe.beacon {
             FsBlobExchange,
             FsWriteExchange,
             FsScriptExchange,
-            DaemonVersionExchange;
+            DaemonVersionExchange,
+            BatchExchange;
 }
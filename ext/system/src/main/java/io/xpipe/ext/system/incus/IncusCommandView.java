@@ -6,11 +6,13 @@ import io.xpipe.app.issue.ErrorEvent;
 import io.xpipe.app.storage.DataStoreEntry;
 import io.xpipe.app.storage.DataStoreEntryRef;
 import io.xpipe.app.util.CommandViewBase;
+import io.xpipe.app.util.SharedSnapshotCache;
 import io.xpipe.core.process.*;
 
 import io.xpipe.core.store.StatefulDataStore;
 import lombok.NonNull;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -18,6 +20,10 @@ import java.util.stream.Collectors;
 
 public class IncusCommandView extends CommandViewBase {
 
+    // A listing of all containers is shared by the containers of a host, so refreshing many of them is cheap
+    private static final SharedSnapshotCache<DataStoreEntryRef<IncusInstallStore>, Map<String, String>> SNAPSHOTS =
+            new SharedSnapshotCache<>(Duration.ofSeconds(5));
+
     private static ElevationFunction requiresElevation() {
         return new ElevationFunction() {
             @Override
@@ -109,9 +115,23 @@ public class IncusCommandView extends CommandViewBase {
         return build(commandBuilder -> commandBuilder.add("config", "edit").addQuoted(containerName));
     }
 
+    public CommandControl monitor() {
+        return build(commandBuilder -> commandBuilder.add("monitor", "--type=lifecycle", "--format=json"));
+    }
+
+    /**
+     * Queries the state of a container from a listing that was started at or after the given {@link System#nanoTime()},
+     * so that the effects of an action that started at that time are included.
+     */
+    public String queryContainerState(DataStoreEntryRef<IncusInstallStore> store, String containerName, long notBefore)
+            throws Exception {
+        var states = SNAPSHOTS.get(store, this::listContainersAndStates, notBefore);
+        return states.getOrDefault(containerName, "?");
+    }
+
     public List<DataStoreEntryRef<IncusContainerStore>> listContainers(DataStoreEntryRef<IncusInstallStore> store)
             throws Exception {
-        return listContainersAndStates().entrySet().stream()
+        return SNAPSHOTS.refresh(store, this::listContainersAndStates).entrySet().stream()
                 .map(s -> {
                     boolean running = s.getValue().toLowerCase(Locale.ROOT).equals("running");
                     var c = new IncusContainerStore(store, s.getKey(), null);
@@ -126,10 +146,6 @@ public class IncusCommandView extends CommandViewBase {
                 .toList();
     }
 
-    public String queryContainerState(String containerName) throws Exception {
-        var states = listContainersAndStates();
-        return states.getOrDefault(containerName, "?");
-    }
 
     private Map<String, String> listContainersAndStates() throws Exception {
         try (var c = build(commandBuilder -> commandBuilder.add("list", "-f", "csv", "-c", "ns"))
@@ -105,10 +105,11 @@ public class IncusContainerStore
         };
     }
 
-    private void refreshContainerState(ShellControl sc) throws Exception {
+    private void refreshContainerState(ShellControl sc, long actionStart) throws Exception {
         var state = getState();
         var view = new IncusCommandView(sc);
-        var displayState = view.queryContainerState(containerName);
+        // Listings from before the action do not reflect the change that we just made
+        var displayState = view.queryContainerState(getInstall(), containerName, actionStart);
         var running = "RUNNING".equals(displayState);
         var newState =
                 state.toBuilder().containerState(displayState).running(running).build();
@@ -119,23 +120,26 @@ public class IncusContainerStore
     public void start() throws Exception {
         var sc = getInstall().getStore().getHost().getStore().getOrStartSession();
         var view = new IncusCommandView(sc);
+        var actionStart = System.nanoTime();
         view.start(containerName);
-        refreshContainerState(sc);
+        refreshContainerState(sc, actionStart);
     }
 
     @Override
     public void stop() throws Exception {
         var sc = getInstall().getStore().getHost().getStore().getOrStartSession();
         var view = new IncusCommandView(sc);
+        var actionStart = System.nanoTime();
         view.stop(containerName);
-        refreshContainerState(sc);
+        refreshContainerState(sc, actionStart);
     }
 
     @Override
     public void pause() throws Exception {
         var sc = getInstall().getStore().getHost().getStore().getOrStartSession();
         var view = new IncusCommandView(sc);
+        var actionStart = System.nanoTime();
         view.pause(containerName);
-        refreshContainerState(sc);
+        refreshContainerState(sc, actionStart);
     }
 }
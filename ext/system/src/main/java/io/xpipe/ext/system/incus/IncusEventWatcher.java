@@ -0,0 +1,42 @@
+package io.xpipe.ext.system.incus;
+
+import io.xpipe.app.ext.ContainerEventWatcher;
+import io.xpipe.app.ext.ShellStore;
+import io.xpipe.app.storage.DataStoreEntry;
+import io.xpipe.core.process.CommandControl;
+import io.xpipe.core.process.ShellControl;
+import io.xpipe.core.store.DataStore;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Optional;
+
+public class IncusEventWatcher extends ContainerEventWatcher {
+
+    public IncusEventWatcher(DataStoreEntry entry) {
+        super(entry);
+    }
+
+    @Override
+    protected ShellStore getHost() {
+        IncusInstallStore s = entry.getStore().asNeeded();
+        return s.getHost().getStore();
+    }
+
+    @Override
+    protected CommandControl createEventCommand(ShellControl sc) {
+        return new IncusCommandView(sc).monitor();
+    }
+
+    @Override
+    protected Optional<Event> parseEvent(JsonNode node) {
+        return parseLifecycleEvent(node);
+    }
+
+    @Override
+    protected Optional<String> getContainerName(DataStore child) {
+        return child instanceof IncusContainerStore c
+                ? Optional.of(c.getContainerName())
+                : Optional.empty();
+    }
+}
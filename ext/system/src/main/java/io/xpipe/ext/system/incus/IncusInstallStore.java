@@ -1,5 +1,6 @@
 package io.xpipe.ext.system.incus;
 
+import io.xpipe.app.ext.ContainerEventWatcher;
 import io.xpipe.app.ext.ShellStore;
 import io.xpipe.app.storage.DataStoreEntryRef;
 import io.xpipe.app.util.CommandSupport;
@@ -61,7 +62,9 @@ public class IncusInstallStore
         var view = new IncusCommandView(sc);
         CommandSupport.isSupported(() -> view.isSupported(), "Incus CLI client (incus)", host.get());
         updateState();
-        return view.listContainers(getSelfEntry().ref());
+        var containers = view.listContainers(getSelfEntry().ref());
+        ContainerEventWatcher.watch(getSelfEntry(), () -> new IncusEventWatcher(getSelfEntry()));
+        return containers;
     }
 
     @Value
@@ -1,5 +1,6 @@
 package io.xpipe.ext.system.lxd;
 
+import io.xpipe.app.ext.ContainerEventWatcher;
 import io.xpipe.app.ext.ShellStore;
 import io.xpipe.app.storage.DataStoreEntryRef;
 import io.xpipe.app.util.CommandSupport;
@@ -56,7 +57,9 @@ public class LxdCmdStore implements FixedHierarchyStore, StatefulDataStore<LxdCm
         var view = new LxdCommandView(sc);
         CommandSupport.isSupported(() -> view.isSupported(), "LXD CLI client (lxc)", host.get());
         updateState(view);
-        return view.listContainers(getSelfEntry().ref());
+        var containers = view.listContainers(getSelfEntry().ref());
+        ContainerEventWatcher.watch(getSelfEntry(), () -> new LxdEventWatcher(getSelfEntry()));
+        return containers;
     }
 
     @Value
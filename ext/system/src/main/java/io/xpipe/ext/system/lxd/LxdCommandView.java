@@ -5,10 +5,12 @@ import io.xpipe.app.issue.ErrorEvent;
 import io.xpipe.app.storage.DataStoreEntry;
 import io.xpipe.app.storage.DataStoreEntryRef;
 import io.xpipe.app.util.CommandViewBase;
+import io.xpipe.app.util.SharedSnapshotCache;
 import io.xpipe.core.process.*;
 
 import lombok.NonNull;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -16,6 +18,10 @@ import java.util.stream.Collectors;
 
 public class LxdCommandView extends CommandViewBase {
 
+    // A listing of all containers is shared by the containers of a host, so refreshing many of them is cheap
+    private static final SharedSnapshotCache<DataStoreEntryRef<LxdCmdStore>, Map<String, String>> SNAPSHOTS =
+            new SharedSnapshotCache<>(Duration.ofSeconds(5));
+
     private static ElevationFunction requiresElevation() {
         return new ElevationFunction() {
             @Override
@@ -87,10 +93,6 @@ public class LxdCommandView extends CommandViewBase {
                 .readStdoutOrThrow();
     }
 
-    public String queryContainerState(String containerName) throws Exception {
-        var states = listContainersAndStates();
-        return states.getOrDefault(containerName, "?");
-    }
 
     public void start(String containerName) throws Exception {
         build(commandBuilder -> commandBuilder.add("start").addQuoted(containerName))
@@ -115,9 +117,23 @@ public class LxdCommandView extends CommandViewBase {
         return build(commandBuilder -> commandBuilder.add("config", "edit").addQuoted(containerName));
     }
 
+    public CommandControl monitor() {
+        return build(commandBuilder -> commandBuilder.add("monitor", "--type=lifecycle", "--format=json"));
+    }
+
+    /**
+     * Queries the state of a container from a listing that was started at or after the given {@link System#nanoTime()},
+     * so that the effects of an action that started at that time are included.
+     */
+    public String queryContainerState(DataStoreEntryRef<LxdCmdStore> store, String containerName, long notBefore)
+            throws Exception {
+        var states = SNAPSHOTS.get(store, this::listContainersAndStates, notBefore);
+        return states.getOrDefault(containerName, "?");
+    }
+
     public List<DataStoreEntryRef<LxdContainerStore>> listContainers(DataStoreEntryRef<LxdCmdStore> store)
             throws Exception {
-        return listContainersAndStates().entrySet().stream()
+        return SNAPSHOTS.refresh(store, this::listContainersAndStates).entrySet().stream()
                 .map(s -> {
                     boolean running = s.getValue().toLowerCase(Locale.ROOT).equals("running");
                     var c = LxdContainerStore.builder()
@@ -109,10 +109,11 @@ public class LxdContainerStore
         };
     }
 
-    private void refreshContainerState(ShellControl sc) throws Exception {
+    private void refreshContainerState(ShellControl sc, long actionStart) throws Exception {
         var state = getState();
         var view = new LxdCommandView(sc);
-        var displayState = view.queryContainerState(containerName);
+        // Listings from before the action do not reflect the change that we just made
+        var displayState = view.queryContainerState(getCmd(), containerName, actionStart);
         var running = "RUNNING".equals(displayState);
         var newState =
                 state.toBuilder().containerState(displayState).running(running).build();
@@ -123,23 +124,26 @@ public class LxdContainerStore
     public void start() throws Exception {
         var sc = getCmd().getStore().getHost().getStore().getOrStartSession();
         var view = new LxdCommandView(sc);
+        var actionStart = System.nanoTime();
         view.start(containerName);
-        refreshContainerState(sc);
+        refreshContainerState(sc, actionStart);
     }
 
     @Override
     public void stop() throws Exception {
         var sc = getCmd().getStore().getHost().getStore().getOrStartSession();
         var view = new LxdCommandView(sc);
+        var actionStart = System.nanoTime();
         view.stop(containerName);
-        refreshContainerState(sc);
+        refreshContainerState(sc, actionStart);
     }
 
     @Override
     public void pause() throws Exception {
         var sc = getCmd().getStore().getHost().getStore().getOrStartSession();
         var view = new LxdCommandView(sc);
+        var actionStart = System.nanoTime();
         view.pause(containerName);
-        refreshContainerState(sc);
+        refreshContainerState(sc, actionStart);
     }
 }
@@ -0,0 +1,42 @@
+package io.xpipe.ext.system.lxd;
+
+import io.xpipe.app.ext.ContainerEventWatcher;
+import io.xpipe.app.ext.ShellStore;
+import io.xpipe.app.storage.DataStoreEntry;
+import io.xpipe.core.process.CommandControl;
+import io.xpipe.core.process.ShellControl;
+import io.xpipe.core.store.DataStore;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Optional;
+
+public class LxdEventWatcher extends ContainerEventWatcher {
+
+    public LxdEventWatcher(DataStoreEntry entry) {
+        super(entry);
+    }
+
+    @Override
+    protected ShellStore getHost() {
+        LxdCmdStore s = entry.getStore().asNeeded();
+        return s.getHost().getStore();
+    }
+
+    @Override
+    protected CommandControl createEventCommand(ShellControl sc) {
+        return new LxdCommandView(sc).monitor();
+    }
+
+    @Override
+    protected Optional<Event> parseEvent(JsonNode node) {
+        return parseLifecycleEvent(node);
+    }
+
+    @Override
+    protected Optional<String> getContainerName(DataStore child) {
+        return child instanceof LxdContainerStore c
+                ? Optional.of(c.getContainerName())
+                : Optional.empty();
+    }
+}
@@ -1,5 +1,6 @@
 package io.xpipe.ext.system.podman;
 
+import io.xpipe.app.ext.ContainerEventWatcher;
 import io.xpipe.app.ext.ContainerStoreState;
 import io.xpipe.app.ext.ShellStore;
 import io.xpipe.app.issue.ErrorEvent;
@@ -7,7 +8,9 @@ import io.xpipe.app.storage.DataStoreEntry;
 import io.xpipe.app.storage.DataStoreEntryRef;
 import io.xpipe.app.util.CommandSupport;
 import io.xpipe.app.util.FixedHierarchyStore;
+import io.xpipe.app.util.SharedSnapshotCache;
 import io.xpipe.app.util.Validators;
+import io.xpipe.core.process.ProcessOutputException;
 import io.xpipe.core.process.ShellControl;
 import io.xpipe.core.store.*;
 import io.xpipe.ext.base.SelfReferentialStore;
@@ -18,6 +21,7 @@ import lombok.Value;
 import lombok.experimental.SuperBuilder;
 import lombok.extern.jackson.Jacksonized;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -28,6 +32,10 @@ import java.util.regex.Pattern;
 public class PodmanCmdStore
         implements FixedHierarchyStore, StatefulDataStore<PodmanCmdStore.State>, SelfReferentialStore {
 
+    // A listing of all containers is shared by the containers of a host, so refreshing many of them is cheap
+    private static final SharedSnapshotCache<DataStoreEntryRef<PodmanCmdStore>, List<PodmanCommandView.Container.ContainerEntry>>
+            SNAPSHOTS = new SharedSnapshotCache<>(Duration.ofSeconds(5));
+
     DataStoreEntryRef<ShellStore> host;
 
     public PodmanCmdStore(DataStoreEntryRef<ShellStore> host) {
@@ -43,7 +51,7 @@ public class PodmanCmdStore
 
     private List<DataStoreEntryRef<PodmanContainerStore>> listContainers(ShellControl sc) throws Exception {
         var view = new PodmanCommandView(sc);
-        var l = view.container().listContainersAndStates();
+        var l = SNAPSHOTS.refresh(getSelfEntry().ref(), () -> view.container().listContainersAndStates());
         return l.stream()
                 .map(s -> {
                     boolean running =
@@ -63,9 +71,7 @@ public class PodmanCmdStore
                 .toList();
     }
 
-    private void updateState(ShellControl host) throws Exception {
-        var out = new PodmanCommandView(host).version();
-
+    private void updateState(String out) {
         var namePattern = Pattern.compile("Server:\\s+(.+)");
         var nameMatcher = namePattern.matcher(out);
         var name = nameMatcher.find() ? nameMatcher.group(1) : null;
@@ -86,14 +92,19 @@ public class PodmanCmdStore
         var sc = getHost().getStore().getOrStartSession();
         var view = new PodmanCommandView(sc);
         CommandSupport.isSupported(() -> view.isSupported(), "Podman CLI", host.get());
-        var running = view.isDaemonRunning();
-        if (!running) {
+        // The version also includes the server part, so it only succeeds if the daemon is running
+        String version;
+        try {
+            version = view.version();
+        } catch (ProcessOutputException ex) {
             setState(getState().toBuilder().running(false).build());
             throw ErrorEvent.expected(new IllegalStateException("Podman daemon is not running"));
         }
 
-        updateState(sc);
-        return listContainers(sc);
+        updateState(version);
+        var containers = listContainers(sc);
+        ContainerEventWatcher.watch(getSelfEntry(), () -> new PodmanEventWatcher(getSelfEntry()));
+        return containers;
     }
 
     @Value
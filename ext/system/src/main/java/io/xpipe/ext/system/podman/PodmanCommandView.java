@@ -4,10 +4,13 @@ import io.xpipe.app.issue.ErrorEvent;
 import io.xpipe.app.util.CommandView;
 import io.xpipe.app.util.CommandViewBase;
 import io.xpipe.core.process.*;
+import io.xpipe.core.util.JacksonMapper;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.NonNull;
 import lombok.Value;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -63,6 +66,10 @@ public class PodmanCommandView extends CommandViewBase {
         return build(commandBuilder -> commandBuilder.add("version")).executeAndCheck();
     }
 
+    public CommandControl events() {
+        return build(commandBuilder -> commandBuilder.add("events", "--filter", "type=container", "--format", "json"));
+    }
+
     public Container container() {
         return new Container();
     }
@@ -96,19 +103,29 @@ public class PodmanCommandView extends CommandViewBase {
         }
 
         public List<ContainerEntry> listContainersAndStates() throws Exception {
-            if (!PodmanCommandView.this.isDaemonRunning()) {
-                throw new IllegalStateException("Podman daemon is not running");
+            // If the daemon is not running, the listing itself will fail
+            var output = build(commandBuilder -> commandBuilder.add("ls", "-a", "--format", "json"))
+                    .readStdoutOrThrow();
+            var tree = JacksonMapper.getDefault().readTree(output);
+            if (tree == null || !tree.isArray()) {
+                return List.of();
             }
 
-            try (var c = build(commandBuilder ->
-                            commandBuilder.add("ls -a --format=\"{{.Names}};{{.Image}};{{.Status}}\""))
-                    .start()) {
-                var output = c.readStdoutOrThrow();
-                return output.lines()
-                        .filter(s -> s.split(";").length == 3)
-                        .map(s -> new ContainerEntry(s.split(";")[0], s.split(";")[1], s.split(";")[2]))
-                        .toList();
+            var list = new ArrayList<ContainerEntry>();
+            for (JsonNode node : tree) {
+                var names = node.path("Names");
+                var name = names.isArray() ? names.path(0).asText(null) : names.asText(null);
+                if (name == null) {
+                    continue;
+                }
+
+                var status = node.path("Status").asText("");
+                if (status.isEmpty()) {
+                    status = node.path("State").asText("");
+                }
+                list.add(new ContainerEntry(name, node.path("Image").asText(null), status));
             }
+            return list;
         }
 
         public ShellControl exec(String container) {
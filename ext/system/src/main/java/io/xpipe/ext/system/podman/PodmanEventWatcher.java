@@ -0,0 +1,54 @@
+package io.xpipe.ext.system.podman;
+
+import io.xpipe.app.ext.ContainerEventWatcher;
+import io.xpipe.app.ext.ShellStore;
+import io.xpipe.app.storage.DataStoreEntry;
+import io.xpipe.core.process.CommandControl;
+import io.xpipe.core.process.ShellControl;
+import io.xpipe.core.store.DataStore;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Optional;
+
+public class PodmanEventWatcher extends ContainerEventWatcher {
+
+    public PodmanEventWatcher(DataStoreEntry entry) {
+        super(entry);
+    }
+
+    @Override
+    protected ShellStore getHost() {
+        PodmanCmdStore s = entry.getStore().asNeeded();
+        return s.getHost().getStore();
+    }
+
+    @Override
+    protected CommandControl createEventCommand(ShellControl sc) {
+        return new PodmanCommandView(sc).events();
+    }
+
+    @Override
+    protected Optional<Event> parseEvent(JsonNode node) {
+        var name = node.path("Name").asText(null);
+        if (name == null || !"container".equals(node.path("Type").asText("container"))) {
+            return Optional.empty();
+        }
+
+        // The states are chosen to match the status of podman container ls
+        return switch (node.path("Status").asText("")) {
+            case "start", "restart", "unpause" -> Optional.of(new Event(name, "Up", true));
+            case "stop", "died" -> Optional.of(new Event(name, "Exited", false));
+            case "pause" -> Optional.of(new Event(name, "Paused", false));
+            case "create", "remove", "rename" -> Optional.of(new Event(name, null, false));
+            default -> Optional.empty();
+        };
+    }
+
+    @Override
+    protected Optional<String> getContainerName(DataStore child) {
+        return child instanceof PodmanContainerStore c
+                ? Optional.of(c.getContainerName())
+                : Optional.empty();
+    }
+}